@@ -0,0 +1,111 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bsaoudi.library.LibraryApplication;
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.book.IBookDao;
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.customer.ICustomerDao;
+
+/**
+ * Inserts of 1000 books or customers in one transaction, the score being in rows per second. The "per-row" mode
+ * restores the former settings: one sequence call per id and one statement per row. The "pooled-lo" mode uses the
+ * settings of application.properties: ids allocated by blocks and JDBC batches of inserts.
+ * The database is reached through an H2 TCP server on the loopback, so that each call is a real round trip as with
+ * a database server, instead of a method call with the in-memory mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    @Param({"per-row", "pooled-lo"})
+    private String idGeneration;
+
+    private Server server;
+
+    private ConfigurableApplicationContext context;
+
+    private IBookDao bookDao;
+
+    private ICustomerDao customerDao;
+
+    private final Fixtures fixtures = new Fixtures();
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:bulk-insert;DB_CLOSE_DELAY=-1");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--spring.h2.console.enabled=false");
+        args.add("--spring.main.banner-mode=off");
+        args.add("--server.port=0");
+        args.add("--logging.level.root=WARN");
+        if ("per-row".equals(idGeneration)) {
+            args.add("--spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=none");
+            args.add("--spring.jpa.properties.hibernate.jdbc.batch_size=1");
+            args.add("--spring.jpa.properties.hibernate.order_inserts=false");
+        }
+        context = new SpringApplicationBuilder(LibraryApplication.class).run(args.toArray(new String[0]));
+        bookDao = context.getBean(IBookDao.class);
+        customerDao = context.getBean(ICustomerDao.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        server.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Book> insertBooks() {
+        List<Book> books = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Book book = fixtures.book(next++);
+            book.setAvailableExamplaries(book.getTotalExamplaries());
+            books.add(book);
+        }
+        return bookDao.saveAll(books);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Customer> insertCustomers() {
+        List<Customer> customers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            customers.add(fixtures.customer(next++));
+        }
+        return customerDao.saveAll(customers);
+    }
+}
@@ -0,0 +1,86 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.category.Category;
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.loan.Loan;
+import com.bsaoudi.library.loan.LoanId;
+import com.bsaoudi.library.loan.LoanStatus;
+
+/**
+ * Generates the benchmark data. The generator is seeded, so every run works on exactly the same catalog.
+ */
+public class Fixtures {
+
+    public static final long SEED = 42L;
+
+    public static final String[] CATEGORIES = {"INF", "MAT", "ALB", "BDE", "CON", "POE", "ROM", "THE", "PHI", "SCI",
+            "POL", "SOC", "ECO", "JOU"};
+
+    private static final String[] WORDS = {"monde", "nuit", "histoire", "été", "mer", "rouge", "voyage", "ombre",
+            "cœur", "jardin", "lumière", "guerre", "paix", "silence", "ville", "enfant", "temps", "mémoire", "forêt",
+            "étoile", "chemin", "secret", "hiver", "roi", "prince", "fleuve", "île", "amour", "sans", "dernier"};
+
+    private static final String[] LAST_NAMES = {"Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit",
+            "Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefèvre", "Michel", "Garcia", "Müller"};
+
+    private static final String[] FIRST_NAMES = {"Léa", "Hugo", "Chloé", "Louis", "Emma", "Jules", "Inès", "Noé"};
+
+    private final Random random = new Random(SEED);
+
+    public Book book(int index) {
+        Book book = new Book();
+        book.setTitle(words(2 + random.nextInt(4)));
+        book.setAuthor(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        book.setIsbn(isbn(index));
+        book.setReleaseDate(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        book.setRegisterDate(LocalDate.of(2020, 1, 1));
+        book.setTotalExamplaries(1 + random.nextInt(5));
+        book.setCategory(new Category(CATEGORIES[random.nextInt(CATEGORIES.length)], ""));
+        return book;
+    }
+
+    public Customer customer(int index) {
+        Customer customer = new Customer();
+        customer.setFirstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+        customer.setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        customer.setEmail("customer" + index + "@library.test");
+        customer.setJob("reader");
+        customer.setAddress(index + " rue des Livres");
+        customer.setCreationDate(LocalDate.of(2020, 1, 1));
+        return customer;
+    }
+
+    public Loan loan(Book book, Customer customer) {
+        Loan loan = new Loan();
+        loan.setPk(new LoanId(book, customer));
+        LocalDate beginDate = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(2500));
+        loan.setBeginDate(beginDate);
+        loan.setEndDate(beginDate.plusDays(15 + random.nextInt(30)));
+        loan.setStatus(LoanStatus.OPEN);
+        return loan;
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public static String isbn(int index) {
+        return String.format("978-2-%07d", index);
+    }
+
+    private String words(int count) {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        title.setCharAt(0, Character.toUpperCase(title.charAt(0)));
+        return title.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bsaoudi.library.book.BookDTO;
+import com.bsaoudi.library.book.BookMapper;
+import com.bsaoudi.library.loan.LoanDTO;
+import com.bsaoudi.library.loan.LoanMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON serialization of BookDTO and LoanDTO lists of 100 elements, with the ObjectMapper of the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JsonBenchmark {
+
+    private static final int SIZE = 100;
+
+    private ObjectMapper objectMapper;
+
+    private List<BookDTO> bookDTOs;
+
+    private List<LoanDTO> loanDTOs;
+
+    @Setup
+    public void setUp(LibraryContext context) {
+        objectMapper = context.getBean(ObjectMapper.class);
+        BookMapper bookMapper = context.getBean(BookMapper.class);
+        LoanMapper loanMapper = context.getBean(LoanMapper.class);
+        bookDTOs = context.getBooks().stream().limit(SIZE).map(bookMapper::toBookDTO).collect(Collectors.toList());
+        loanDTOs = context.getLoans().stream().limit(SIZE).map(loanMapper::toLoanDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeBookDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeLoanDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanDTOs);
+    }
+}
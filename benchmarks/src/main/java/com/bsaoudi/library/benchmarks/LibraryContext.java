@@ -0,0 +1,104 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bsaoudi.library.LibraryApplication;
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.book.BookServiceImpl;
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.customer.CustomerServiceImpl;
+import com.bsaoudi.library.loan.Loan;
+import com.bsaoudi.library.loan.LoanServiceImpl;
+
+/**
+ * The application context shared by the benchmarks of a fork: the whole application started on an in-memory H2
+ * database, seeded with the {@link Fixtures}.
+ */
+@State(Scope.Benchmark)
+public class LibraryContext {
+
+    public static final int BOOKS = 10_000;
+
+    public static final int CUSTOMERS = 1_000;
+
+    public static final int LOANS = 5_000;
+
+    private ConfigurableApplicationContext context;
+
+    private List<Book> books;
+
+    private List<Customer> customers;
+
+    private List<Loan> loans;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // passed as arguments, to take precedence over application.properties
+        context = new SpringApplicationBuilder(LibraryApplication.class)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--server.port=0",
+                        "--logging.level.root=WARN");
+
+        Fixtures fixtures = new Fixtures();
+        BookServiceImpl bookService = getBean(BookServiceImpl.class);
+        CustomerServiceImpl customerService = getBean(CustomerServiceImpl.class);
+        LoanServiceImpl loanService = getBean(LoanServiceImpl.class);
+        books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(bookService.saveBook(fixtures.book(i)));
+        }
+        customers = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(customerService.saveCustomer(fixtures.customer(i)));
+        }
+        // a customer borrows a book at most once: there is only one open loan per book and customer
+        Set<Long> lentBooks = new HashSet<>();
+        for (int i = 0; i < LOANS; i++) {
+            int book = fixtures.nextInt(BOOKS);
+            while (!lentBooks.add((long) book * CUSTOMERS + i % CUSTOMERS)) {
+                book = fixtures.nextInt(BOOKS);
+            }
+            loanService.saveLoan(fixtures.loan(books.get(book), customers.get(i % CUSTOMERS)));
+        }
+        loans = loanService.findAllLoansByEndDateBefore(LocalDate.of(9999, 1, 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * @return the seeded books, detached from any persistence context
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public List<Loan> getLoans() {
+        return loans;
+    }
+}
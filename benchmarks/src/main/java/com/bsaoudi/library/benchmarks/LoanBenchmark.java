@@ -0,0 +1,52 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bsaoudi.library.loan.Loan;
+import com.bsaoudi.library.loan.LoanServiceImpl;
+
+/**
+ * Loan creation through LoanServiceImpl.saveLoan, one transaction per loan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class LoanBenchmark {
+
+    private LibraryContext context;
+
+    private LoanServiceImpl loanService;
+
+    private Fixtures fixtures;
+
+    private int next;
+
+    @Setup
+    public void setUp(LibraryContext context) {
+        this.context = context;
+        loanService = context.getBean(LoanServiceImpl.class);
+        fixtures = new Fixtures();
+    }
+
+    @Benchmark
+    public Loan saveLoan() {
+        next++;
+        Loan loan = fixtures.loan(context.getBooks().get(next % LibraryContext.BOOKS),
+                context.getCustomers().get((next / LibraryContext.BOOKS) % LibraryContext.CUSTOMERS));
+        return loanService.saveLoan(loan);
+    }
+}
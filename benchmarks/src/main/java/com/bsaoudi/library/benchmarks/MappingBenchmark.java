@@ -0,0 +1,66 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.book.BookDTO;
+import com.bsaoudi.library.book.BookMapper;
+import com.bsaoudi.library.loan.Loan;
+import com.bsaoudi.library.loan.LoanDTO;
+import com.bsaoudi.library.loan.LoanMapper;
+
+/**
+ * Entity to DTO mapping of the controllers, on 1000 books and 1000 loans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MappingBenchmark {
+
+    private static final int SIZE = 1_000;
+
+    private BookMapper bookMapper;
+
+    private LoanMapper loanMapper;
+
+    private List<Book> books;
+
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp(LibraryContext context) {
+        bookMapper = context.getBean(BookMapper.class);
+        loanMapper = context.getBean(LoanMapper.class);
+        books = context.getBooks().subList(0, SIZE);
+        loans = context.getLoans().subList(0, SIZE);
+    }
+
+    @Benchmark
+    public List<BookDTO> mapBookToBookDTO() {
+        return books.stream().map(bookMapper::toBookDTO).collect(Collectors.toList());
+    }
+
+    /**
+     * Mapping then sort by begin date, as the loan listings did before reading LoanDTO projections.
+     */
+    @Benchmark
+    public List<LoanDTO> mapLoanDtosFromLoans() {
+        return loans.stream().map(loanMapper::toLoanDTO).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bsaoudi.library.book.BookDTO;
+import com.bsaoudi.library.book.BookMapper;
+import com.bsaoudi.library.book.BookServiceImpl;
+import com.bsaoudi.library.book.IBookDao;
+
+/**
+ * Large reads in a read-write transaction, as the services did, or in a read-only one, as they do now: the session
+ * is then read-only (no snapshot of the loaded entities) and its flush mode MANUAL (no dirty checking at commit).
+ * The service methods join the transaction of the benchmark, so both modes run the same code.
+ * Run with -prof gc to compare the memory allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReadOnlyTransactionBenchmark {
+
+    @Param({"read-write", "read-only"})
+    private String transaction;
+
+    private TransactionTemplate transactionTemplate;
+
+    private IBookDao bookDao;
+
+    private BookMapper bookMapper;
+
+    private BookServiceImpl bookService;
+
+    @Setup
+    public void setUp(LibraryContext context) {
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly("read-only".equals(transaction));
+        bookDao = context.getBean(IBookDao.class);
+        bookMapper = context.getBean(BookMapper.class);
+        bookService = context.getBean(BookServiceImpl.class);
+    }
+
+    /**
+     * The 10 000 books in one persistence context, as when the indexes are built.
+     */
+    @Benchmark
+    public List<BookDTO> findAllBooks() {
+        return transactionTemplate.execute(status -> bookDao.findAll().stream().map(bookMapper::toBookDTO)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * About 700 books of a category.
+     */
+    @Benchmark
+    public List<BookDTO> getBooksByCategory() {
+        return transactionTemplate.execute(status -> bookService.getBooksByCategory("ROM"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bsaoudi.library.book.BookDTO;
+import com.bsaoudi.library.book.BookServiceImpl;
+
+/**
+ * Title search and ISBN lookup through BookServiceImpl, on the 10 000 seeded books.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SearchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class TitleParam {
+
+        /**
+         * A frequent word, a rare phrase and a term too short for the trigram index.
+         */
+        @Param({"monde", "nuit sans", "ro"})
+        private String title;
+    }
+
+    private BookServiceImpl bookService;
+
+    private int next;
+
+    @Setup
+    public void setUp(LibraryContext context) {
+        bookService = context.getBean(BookServiceImpl.class);
+    }
+
+    @Benchmark
+    public List<BookDTO> findBooksByTitleOrPartTitle(TitleParam param) {
+        return bookService.findBooksByTitleOrPartTitle(param.title);
+    }
+
+    @Benchmark
+    public BookDTO findBookByIsbn() {
+        next = (next + 7919) % LibraryContext.BOOKS;
+        return bookService.findBookByIsbn(Fixtures.isbn(next));
+    }
+}
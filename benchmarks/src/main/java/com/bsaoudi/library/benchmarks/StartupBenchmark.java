@@ -0,0 +1,182 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationFailedEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bsaoudi.library.LibraryApplication;
+
+/**
+ * Start of the application on an H2 file database holding a million books and a million loans. The "create-drop"
+ * mode uses the settings of application.properties: the schema is dropped and generated by Hibernate, and the
+ * categories loaded again. The "prod" mode uses the prod profile: the Flyway migrations are checked against their
+ * history and the schema validated by Hibernate.
+ * <p>
+ * The time is measured until the context is refreshed, when the schema is ready. The start is then aborted, before
+ * the indexes of the books are built: the create-drop mode has no book left to index, and building them over a
+ * million books takes minutes. The database is copied back from a template before each start, outside of the
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class StartupBenchmark {
+
+    public static final int BOOKS = 1_000_000;
+
+    public static final int CUSTOMERS = 10_000;
+
+    public static final int LOANS = 1_000_000;
+
+    private static final Path DIRECTORY = Paths.get("target", "startup");
+
+    private static final String USER = "sa";
+
+    @Param({"create-drop", "prod"})
+    private String schema;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private Future<ConfigurableApplicationContext> application;
+
+    private CountDownLatch stopped;
+
+    @Setup(Level.Trial)
+    public void createTemplate() throws IOException, SQLException {
+        if (Files.exists(file("template"))) {
+            return;
+        }
+        Files.createDirectories(DIRECTORY);
+        Flyway.configure().dataSource(url("template"), USER, USER).load().migrate();
+        try (Connection connection = DriverManager.getConnection(url("template"), USER, USER);
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO BOOK (BOOK_ID, TITLE, TITLE_KEY, AUTHOR, AUTHOR_KEY, ISBN, RELEASE_DATE, "
+                    + "REGISTER_DATE, TOTAL_EXAMPLARIES, AVAILABLE_EXAMPLARIES, CAT_CODE) "
+                    + "SELECT X, 'Book ' || X, 'book ' || X, 'Author ' || MOD(X, 5000), 'author ' || MOD(X, 5000), "
+                    + "'ISBN-' || X, DATEADD('DAY', -MOD(X, 20000), DATE '2020-01-01'), DATE '2020-01-01', 3, 2, 'ROM' "
+                    + "FROM SYSTEM_RANGE(1, " + BOOKS + ")");
+            statement.execute("INSERT INTO CUSTOMER (CUSTOMER_ID, FIRST_NAME, LAST_NAME, LAST_NAME_KEY, EMAIL, EMAIL_KEY, "
+                    + "CREATION_DATE) SELECT X, 'First' || X, 'Last' || X, 'last' || X, 'customer' || X || '@test.org', "
+                    + "'customer' || X || '@test.org', DATE '2020-01-01' FROM SYSTEM_RANGE(1, " + CUSTOMERS + ")");
+            statement.execute("INSERT INTO LOAN (BOOK_ID, CUSTOMER_ID, CREATION_DATE_TIME, BEGIN_DATE, END_DATE, STATUS) "
+                    + "SELECT X, MOD(X, " + CUSTOMERS + ") + 1, DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00'), "
+                    + "DATE '2020-01-01', DATE '2020-01-16', 'CLOSE' FROM SYSTEM_RANGE(1, " + LOANS + ")");
+            statement.execute("ALTER SEQUENCE BOOK_SEQ RESTART WITH " + (BOOKS + 1));
+            statement.execute("ALTER SEQUENCE CUSTOMER_SEQ RESTART WITH " + (CUSTOMERS + 1));
+            statement.execute("SHUTDOWN COMPACT");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyTemplate() throws IOException {
+        Files.copy(file("template"), file("library"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Starts the application on another thread and returns once its context is refreshed. The thread then waits for
+     * {@link #stop()} to abort the start, which closes the context.
+     */
+    @Benchmark
+    public void start() throws InterruptedException {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=" + url("library"));
+        args.add("--spring.h2.console.enabled=false");
+        args.add("--spring.main.banner-mode=off");
+        args.add("--server.port=0");
+        args.add("--logging.level.root=WARN");
+        // the abort of each start is not an error
+        args.add("--logging.level.org.springframework.boot.SpringApplication=OFF");
+        if ("prod".equals(schema)) {
+            args.add("--spring.profiles.active=prod");
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stop = new CountDownLatch(1);
+        stopped = stop;
+        application = executor.submit(() -> new SpringApplicationBuilder(LibraryApplication.class)
+                .listeners(event -> {
+                    if (event instanceof ApplicationFailedEvent) {
+                        started.countDown();
+                    } else if (event instanceof ApplicationStartedEvent) {
+                        started.countDown();
+                        try {
+                            stop.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new StartAborted();
+                    }
+                })
+                .run(args.toArray(new String[0])));
+        started.await();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        stopped.countDown();
+        try {
+            application.get();
+            throw new IllegalStateException("The start was not aborted");
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof StartAborted)) {
+                throw new IllegalStateException("The application did not start", e.getCause());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static Path file(String database) {
+        return DIRECTORY.resolve(database + ".mv.db");
+    }
+
+    private static String url(String database) {
+        return "jdbc:h2:file:" + DIRECTORY.toAbsolutePath().resolve(database);
+    }
+
+    /**
+     * Thrown once the context is refreshed: the application closes its context and the start ends there.
+     */
+    private static class StartAborted extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
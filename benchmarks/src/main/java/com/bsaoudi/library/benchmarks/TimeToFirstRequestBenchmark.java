@@ -0,0 +1,133 @@
+package com.bsaoudi.library.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time from the launch of a new JVM to the first answered request (the categories), in the prod profile on an
+ * in-memory database. The "war" layout is the executable war, the "jar" one the jar of the application run with its
+ * dependencies in lib. Both are built, with their archives, by the cds profile of the application: mvn -Pcds install
+ * (the archive of the war no longer matches it once it is built again without the profile).
+ * <p>
+ * The startup modes add the optimizations one after the other: "baseline" starts springfox, which reflects over the
+ * controllers, and scans the classpath for the components; "static-api-docs" serves the Swagger document generated
+ * at build time instead; "indexed" reads the components from their index; "cds" maps the classes from the Class Data
+ * Sharing archive written by the training run of the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimeToFirstRequestBenchmark {
+
+    private static final File TARGET = new File("../target");
+
+    private static final File LOG = new File("target", "time-to-first-request.log");
+
+    private static final String FIRST_REQUEST = "/rest/category/api/allCategories";
+
+    @Param({"war", "jar"})
+    private String layout;
+
+    @Param({"baseline", "static-api-docs", "indexed", "cds"})
+    private String startup;
+
+    private List<String> command;
+
+    private String url;
+
+    private Process application;
+
+    @Setup(Level.Invocation)
+    public void prepare() throws IOException {
+        boolean war = "war".equals(layout);
+        File jar = new File(TARGET, war ? "library-0.0.1-SNAPSHOT.war" : "library-0.0.1-SNAPSHOT-app.jar");
+        File archive = new File(TARGET, war ? "library-war.jsa" : "library-app.jsa");
+        if (!jar.exists() || !archive.exists()) {
+            throw new IllegalStateException(jar + " or " + archive + " missing: build them with mvn -Pcds install");
+        }
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        if ("cds".equals(startup)) {
+            // fails instead of starting without the archive, when it does not match the jars any more
+            command.add("-Xshare:on");
+            command.add("-XX:SharedArchiveFile=" + archive.getPath());
+        }
+        if ("baseline".equals(startup) || "static-api-docs".equals(startup)) {
+            command.add("-Dspring.index.ignore=true");
+        }
+        command.add("-jar");
+        command.add(jar.getPath());
+        command.add("--spring.profiles.active=prod");
+        command.add("--spring.datasource.url=jdbc:h2:mem:library");
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=WARN");
+        if ("baseline".equals(startup)) {
+            command.add("--library.api-docs.static=false");
+            // the springfox configurations scan their packages too: their request handler provider, replaced by the
+            // one of SwaggerConfiguration
+            command.add("--spring.main.allow-bean-definition-overriding=true");
+        }
+        url = "http://localhost:" + port + FIRST_REQUEST;
+    }
+
+    /**
+     * Launches the application and polls it until it answers.
+     */
+    @Benchmark
+    public int firstRequest() throws IOException, InterruptedException {
+        application = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(LOG)
+                .start();
+        while (true) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("The application exited, see " + LOG);
+            }
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            try {
+                int status = connection.getResponseCode();
+                if (status == HttpURLConnection.HTTP_OK) {
+                    return status;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            } finally {
+                connection.disconnect();
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        application.destroy();
+        application.waitFor();
+    }
+}
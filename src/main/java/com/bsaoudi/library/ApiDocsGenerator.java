@@ -0,0 +1,45 @@
+package com.bsaoudi.library;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Writes the Swagger document of the REST API to the file given as argument, served as /api-docs.json when
+ * springfox is not started (library.api-docs.static=true). Run by the build at prepare-package: the application is
+ * started on an in-memory database and its /v2/api-docs read. The host of this run is removed from the document,
+ * so that the clients use the one serving it. A document without any path fails the build.
+ */
+public class ApiDocsGenerator {
+
+    public static void main(String[] args) throws IOException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApplication.class)
+                .run("--spring.datasource.url=jdbc:h2:mem:api-docs",
+                        "--library.api-docs.static=false",
+                        "--spring.h2.console.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--server.port=0",
+                        "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String apiDocs = new RestTemplate().getForObject("http://localhost:" + port + "/v2/api-docs", String.class);
+            ObjectMapper objectMapper = new ObjectMapper();
+            ObjectNode document = (ObjectNode) objectMapper.readTree(apiDocs);
+            if (document.path("paths").size() == 0) {
+                throw new IllegalStateException("No path in the Swagger document: " + apiDocs);
+            }
+            document.remove("host");
+            Path file = Paths.get(args[0]);
+            Files.createDirectories(file.getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), document);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.bsaoudi.library;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Training run of the Class Data Sharing archives (profile cds of the build), started instead of
+ * {@link LibraryApplication}: once the application is ready, it sends itself a first request, so that the classes
+ * loaded to answer it are archived too, then exits. The JVM writes the classes loaded since its start in the archive
+ * given by -XX:ArchiveClassesAtExit.
+ */
+public class StartupTrainingRun {
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = SpringApplication.run(LibraryApplication.class, args);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        new RestTemplate().getForObject("http://localhost:" + port + contextPath + "/rest/category/api/allCategories",
+                String.class);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -14,12 +15,21 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.bsaoudi.library.category.Category;
+import com.bsaoudi.library.common.TextNormalizer;
 import com.bsaoudi.library.loan.Loan;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 @Table(name = "BOOK")
 public class Book {
 
@@ -35,14 +45,21 @@ public class Book {
 
     private Integer totalExamplaries;
 
+    private Integer availableExamplaries;
+
     private String author;
 
+    private String titleKey;
+
+    private String authorKey;
+
     private Category category;
 
     Set<Loan> loans = new HashSet<>();
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "BOOK_SEQ")
+    @SequenceGenerator(name = "BOOK_SEQ", sequenceName = "BOOK_SEQ", allocationSize = 50)
     @Column(name = "BOOK_ID")
     public Integer getId() {
         return id;
@@ -97,6 +114,19 @@ public class Book {
         this.totalExamplaries = totalExamplaries;
     }
 
+    /**
+     * Number of copies not currently lent. Never written with the entity: it is only changed by the conditional
+     * updates of {@link BookBatchDao}, so that concurrent checkouts cannot lend more copies than the library owns.
+     */
+    @Column(name = "AVAILABLE_EXAMPLARIES", updatable = false)
+    public Integer getAvailableExamplaries() {
+        return availableExamplaries;
+    }
+
+    public void setAvailableExamplaries(Integer availableExamplaries) {
+        this.availableExamplaries = availableExamplaries;
+    }
+
     @Column(name = "AUTHOR")
     public String getAuthor() {
         return author;
@@ -106,6 +136,30 @@ public class Book {
         this.author = author;
     }
 
+    /**
+     * Accent and case insensitive search key of the title, computed at write time.
+     */
+    @Column(name = "TITLE_KEY")
+    public String getTitleKey() {
+        return titleKey;
+    }
+
+    public void setTitleKey(String titleKey) {
+        this.titleKey = titleKey;
+    }
+
+    /**
+     * Accent and case insensitive search key of the author, computed at write time.
+     */
+    @Column(name = "AUTHOR_KEY")
+    public String getAuthorKey() {
+        return authorKey;
+    }
+
+    public void setAuthorKey(String authorKey) {
+        this.authorKey = authorKey;
+    }
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "CAT_CODE", referencedColumnName = "CODE")
     public Category getCategory() {
@@ -125,6 +179,13 @@ public class Book {
         this.loans = loans;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void computeSearchKeys() {
+        this.titleKey = TextNormalizer.normalize(title);
+        this.authorKey = TextNormalizer.normalize(author);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
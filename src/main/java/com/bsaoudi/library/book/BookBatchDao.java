@@ -0,0 +1,111 @@
+package com.bsaoudi.library.book;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Updates of the available examplaries. They are conditional, so they stay atomic in the database, and the ones for
+ * the loans registered several at a time are JDBC batches: one statement per book sent in a single round trip.
+ * <p>
+ * They bypass Hibernate, so the caller locks the updated books in the second-level cache; a JPQL bulk update
+ * would have invalidated the whole book region instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookBatchDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes one available examplary of the book.
+     *
+     * @param bookId
+     * @return false if no examplary is available, or the book does not exist
+     */
+    public boolean reserveExamplary(Integer bookId) {
+        return jdbcTemplate.update("UPDATE BOOK SET AVAILABLE_EXAMPLARIES = AVAILABLE_EXAMPLARIES - 1"
+                + " WHERE BOOK_ID = ? AND AVAILABLE_EXAMPLARIES > 0", bookId) == 1;
+    }
+
+    /**
+     * Gives back one examplary of the book, never more than its total examplaries.
+     *
+     * @param bookId
+     */
+    public void releaseExamplary(Integer bookId) {
+        jdbcTemplate.update("UPDATE BOOK SET AVAILABLE_EXAMPLARIES = AVAILABLE_EXAMPLARIES + 1"
+                + " WHERE BOOK_ID = ? AND AVAILABLE_EXAMPLARIES < TOTAL_EXAMPLARIES", bookId);
+    }
+
+    /**
+     * Changes the available examplaries of the book by the change of its total examplaries, never below the
+     * examplaries on loan.
+     *
+     * @param bookId
+     * @param totalExamplaries the new total examplaries
+     * @return false if more examplaries are on loan than the new total, or the book does not exist
+     */
+    public boolean resizeExamplaries(Integer bookId, Integer totalExamplaries) {
+        return jdbcTemplate.update("UPDATE BOOK SET AVAILABLE_EXAMPLARIES = AVAILABLE_EXAMPLARIES + ? - TOTAL_EXAMPLARIES"
+                + " WHERE BOOK_ID = ? AND TOTAL_EXAMPLARIES - AVAILABLE_EXAMPLARIES <= ?",
+                totalExamplaries, bookId, totalExamplaries) == 1;
+    }
+
+    /**
+     * @param bookId
+     * @return the available examplaries of the book, null if it does not exist
+     */
+    public Integer findAvailableExamplaries(Integer bookId) {
+        return jdbcTemplate.query("SELECT AVAILABLE_EXAMPLARIES FROM BOOK WHERE BOOK_ID = ?",
+                resultSet -> resultSet.next() ? (Integer) resultSet.getObject(1) : null, bookId);
+    }
+
+    /**
+     * Takes the given number of examplaries of each book, all or none of them for a given book.
+     *
+     * @param examplariesByBook
+     * @return the ids of the books which have not enough available examplaries
+     */
+    public Set<Integer> reserveExamplaries(Map<Integer, Integer> examplariesByBook) {
+        List<Integer> bookIds = new ArrayList<>(examplariesByBook.keySet());
+        List<Object[]> args = new ArrayList<>(bookIds.size());
+        for (Integer bookId : bookIds) {
+            Integer examplaries = examplariesByBook.get(bookId);
+            args.add(new Object[] {examplaries, bookId, examplaries});
+        }
+        int[] counts = jdbcTemplate.batchUpdate("UPDATE BOOK SET AVAILABLE_EXAMPLARIES = AVAILABLE_EXAMPLARIES - ?"
+                + " WHERE BOOK_ID = ? AND AVAILABLE_EXAMPLARIES >= ?", args);
+        Set<Integer> refused = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (!isUpdated(counts[i])) {
+                refused.add(bookIds.get(i));
+            }
+        }
+        return refused;
+    }
+
+    /**
+     * Gives back the given number of examplaries of each book, never more than the total examplaries.
+     *
+     * @param examplariesByBook
+     */
+    public void releaseExamplaries(Map<Integer, Integer> examplariesByBook) {
+        List<Object[]> args = new ArrayList<>(examplariesByBook.size());
+        examplariesByBook.forEach((bookId, examplaries) -> args.add(new Object[] {examplaries, bookId}));
+        jdbcTemplate.batchUpdate("UPDATE BOOK SET AVAILABLE_EXAMPLARIES = LEAST(AVAILABLE_EXAMPLARIES + ?, TOTAL_EXAMPLARIES)"
+                + " WHERE BOOK_ID = ?", args);
+    }
+
+    private static boolean isUpdated(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+}
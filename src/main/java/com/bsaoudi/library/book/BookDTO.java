@@ -28,6 +28,9 @@ public class BookDTO implements Comparable<BookDTO>{
     @ApiModelProperty(value = "Book total examplaries")
     private Integer totalExamplaries;
 
+    @ApiModelProperty(value = "Book examplaries not currently lent", readOnly = true)
+    private Integer availableExamplaries;
+
     @ApiModelProperty(value = "Book author")
     private String author;
 
@@ -82,6 +85,14 @@ public class BookDTO implements Comparable<BookDTO>{
         this.totalExamplaries = totalExamplaries;
     }
 
+    public Integer getAvailableExamplaries() {
+        return availableExamplaries;
+    }
+
+    public void setAvailableExamplaries(Integer availableExamplaries) {
+        this.availableExamplaries = availableExamplaries;
+    }
+
     public String getAuthor() {
         return author;
     }
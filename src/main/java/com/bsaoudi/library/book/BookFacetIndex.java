@@ -0,0 +1,324 @@
+package com.bsaoudi.library.book;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Component;
+
+import com.bsaoudi.library.common.TextNormalizer;
+
+/**
+ * In-memory facet index of the catalog. Every book gets a dense document number, each category and release year
+ * has the bitset of its documents and each author the posting list of its documents, so a filter is a bitset
+ * intersection. The category and year counts are the cardinalities of the intersections of the matching documents
+ * with the bitset of each value; the authors, too many to hold a bitset each, are counted in one pass over the
+ * matching documents into an array indexed by author number.
+ * The numbers of the removed books and authors are reused by the next added ones, so the index does not grow with
+ * the updates.
+ */
+@Component
+public class BookFacetIndex implements BookIndex {
+
+    public static final int MAX_AUTHOR_FACETS = 20;
+
+    /**
+     * Year of the books without release date, in no year bitset: they are not counted in the year facet.
+     */
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+
+    private final Map<Integer, Integer> docByBook = new HashMap<>();
+
+    private int[] bookByDoc = new int[1024];
+
+    private String[] categoryByDoc = new String[1024];
+
+    private int[] yearByDoc = new int[1024];
+
+    private int[] authorByDoc = new int[1024];
+
+    private int nextDoc;
+
+    private final BitSet freeDocs = new BitSet();
+
+    private final BitSet live = new BitSet();
+
+    private final Map<String, BitSet> docsByCategory = new HashMap<>();
+
+    private final Map<Integer, BitSet> docsByYear = new HashMap<>();
+
+    private final Map<String, Integer> authorByKey = new HashMap<>();
+
+    private String[] authorKeys = new String[256];
+
+    private String[] authorNames = new String[256];
+
+    private IntPostingList[] docsByAuthor = new IntPostingList[256];
+
+    private int nextAuthor;
+
+    private final BitSet freeAuthors = new BitSet();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            docByBook.clear();
+            nextDoc = 0;
+            freeDocs.clear();
+            live.clear();
+            docsByCategory.clear();
+            docsByYear.clear();
+            authorByKey.clear();
+            Arrays.fill(authorKeys, 0, nextAuthor, null);
+            Arrays.fill(authorNames, 0, nextAuthor, null);
+            Arrays.fill(docsByAuthor, 0, nextAuthor, null);
+            nextAuthor = 0;
+            freeAuthors.clear();
+            for (Book book : books) {
+                if (book != null && book.getId() != null) {
+                    add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filters the catalog and counts the facets of the matching books. Every filter is optional.
+     *
+     * @param titleBookIds ids of the books matching the searched title, null when the title is not filtered
+     * @param author
+     * @param categoryCode
+     * @param releaseYear
+     * @param limit maximum number of book ids returned, the lowest ones; the counts are always computed over all the
+     * matching books
+     * @return
+     */
+    public BookFacetedSearch search(int[] titleBookIds, String author, String categoryCode, Integer releaseYear, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            if (categoryCode != null) {
+                matches.and(docsByCategory.getOrDefault(categoryCode, new BitSet()));
+            }
+            if (releaseYear != null) {
+                matches.and(docsByYear.getOrDefault(releaseYear, new BitSet()));
+            }
+            if (author != null) {
+                Integer authorNumber = authorByKey.get(TextNormalizer.normalize(author));
+                matches.and(toBitSet(authorNumber != null ? docsByAuthor[authorNumber] : null));
+            }
+            if (titleBookIds != null) {
+                BitSet titleDocs = new BitSet();
+                for (int bookId : titleBookIds) {
+                    Integer doc = docByBook.get(bookId);
+                    if (doc != null) {
+                        titleDocs.set(doc);
+                    }
+                }
+                matches.and(titleDocs);
+            }
+
+            int total = matches.cardinality();
+            // the document numbers are reused after the deletes: the ids are sorted before they are limited
+            int[] bookIds = new int[total];
+            int[] authorCounts = new int[nextAuthor];
+            int returned = 0;
+            for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+                if (authorByDoc[doc] >= 0) {
+                    authorCounts[authorByDoc[doc]]++;
+                }
+                bookIds[returned++] = bookByDoc[doc];
+            }
+            Arrays.sort(bookIds);
+            bookIds = Arrays.copyOf(bookIds, Math.min(Math.max(limit, 0), total));
+
+            BitSet intersection = new BitSet();
+            Map<String, Integer> categoryCounts = countIntersections(docsByCategory, matches, intersection);
+            Map<Integer, Integer> yearCounts = countIntersections(docsByYear, matches, intersection);
+            Map<String, Integer> authorFacets = new LinkedHashMap<>();
+            IntStream.range(0, authorCounts.length)
+                    .filter(number -> authorCounts[number] > 0)
+                    .boxed()
+                    .sorted(Comparator.<Integer>comparingInt(number -> -authorCounts[number])
+                            .thenComparing(number -> authorKeys[number]))
+                    .limit(MAX_AUTHOR_FACETS)
+                    .forEach(number -> authorFacets.put(authorNames[number], authorCounts[number]));
+            return new BookFacetedSearch(bookIds, total, sortByCount(categoryCounts), sortByKeyDescending(yearCounts), authorFacets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Book book) {
+        int doc;
+        if (freeDocs.isEmpty()) {
+            doc = nextDoc++;
+            if (doc == bookByDoc.length) {
+                int capacity = doc * 2;
+                bookByDoc = Arrays.copyOf(bookByDoc, capacity);
+                categoryByDoc = Arrays.copyOf(categoryByDoc, capacity);
+                yearByDoc = Arrays.copyOf(yearByDoc, capacity);
+                authorByDoc = Arrays.copyOf(authorByDoc, capacity);
+            }
+        } else {
+            doc = freeDocs.nextSetBit(0);
+            freeDocs.clear(doc);
+        }
+        docByBook.put(book.getId(), doc);
+        bookByDoc[doc] = book.getId();
+        live.set(doc);
+
+        categoryByDoc[doc] = book.getCategory() != null ? book.getCategory().getCode() : null;
+        if (categoryByDoc[doc] != null) {
+            docsByCategory.computeIfAbsent(categoryByDoc[doc], code -> new BitSet()).set(doc);
+        }
+        yearByDoc[doc] = book.getReleaseDate() != null ? book.getReleaseDate().getYear() : NO_YEAR;
+        if (yearByDoc[doc] != NO_YEAR) {
+            docsByYear.computeIfAbsent(yearByDoc[doc], year -> new BitSet()).set(doc);
+        }
+
+        String authorKey = book.getAuthorKey() != null ? book.getAuthorKey() : TextNormalizer.normalize(book.getAuthor());
+        authorByDoc[doc] = authorKey.isEmpty() ? -1 : authorNumber(authorKey, book.getAuthor());
+        if (authorByDoc[doc] >= 0) {
+            docsByAuthor[authorByDoc[doc]].add(doc);
+        }
+    }
+
+    /**
+     * Returns the number of the author, numbering it if it is new.
+     */
+    private int authorNumber(String authorKey, String author) {
+        Integer known = authorByKey.get(authorKey);
+        if (known != null) {
+            return known;
+        }
+        int number;
+        if (freeAuthors.isEmpty()) {
+            number = nextAuthor++;
+            if (number == authorKeys.length) {
+                int capacity = number * 2;
+                authorKeys = Arrays.copyOf(authorKeys, capacity);
+                authorNames = Arrays.copyOf(authorNames, capacity);
+                docsByAuthor = Arrays.copyOf(docsByAuthor, capacity);
+            }
+        } else {
+            number = freeAuthors.nextSetBit(0);
+            freeAuthors.clear(number);
+        }
+        authorByKey.put(authorKey, number);
+        authorKeys[number] = authorKey;
+        authorNames[number] = author;
+        docsByAuthor[number] = new IntPostingList();
+        return number;
+    }
+
+    /**
+     * Clears the document of the book, its number is given to the next added book.
+     */
+    private void delete(Integer bookId) {
+        Integer doc = docByBook.remove(bookId);
+        if (doc == null) {
+            return;
+        }
+        live.clear(doc);
+        freeDocs.set(doc);
+        clearBit(docsByCategory, categoryByDoc[doc], doc);
+        clearBit(docsByYear, yearByDoc[doc], doc);
+        int author = authorByDoc[doc];
+        if (author >= 0 && docsByAuthor[author].remove(doc) && docsByAuthor[author].isEmpty()) {
+            authorByKey.remove(authorKeys[author]);
+            authorKeys[author] = null;
+            authorNames[author] = null;
+            docsByAuthor[author] = null;
+            freeAuthors.set(author);
+        }
+        categoryByDoc[doc] = null;
+        authorByDoc[doc] = -1;
+    }
+
+    /**
+     * Counts, for each value of a facet, its documents among the matching ones. The values without any are left out.
+     */
+    private static <K> Map<K, Integer> countIntersections(Map<K, BitSet> docsByValue, BitSet matches, BitSet intersection) {
+        Map<K, Integer> counts = new HashMap<>();
+        for (Map.Entry<K, BitSet> entry : docsByValue.entrySet()) {
+            if (!entry.getValue().intersects(matches)) {
+                continue;
+            }
+            intersection.clear();
+            intersection.or(matches);
+            intersection.and(entry.getValue());
+            counts.put(entry.getKey(), intersection.cardinality());
+        }
+        return counts;
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> docsByValue, K value, int doc) {
+        BitSet docs = value == null ? null : docsByValue.get(value);
+        if (docs != null) {
+            docs.clear(doc);
+            if (docs.isEmpty()) {
+                docsByValue.remove(value);
+            }
+        }
+    }
+
+    private static BitSet toBitSet(IntPostingList docs) {
+        BitSet bits = new BitSet();
+        if (docs != null) {
+            for (int i = 0; i < docs.size(); i++) {
+                bits.set(docs.get(i));
+            }
+        }
+        return bits;
+    }
+
+    private static Map<String, Integer> sortByCount(Map<String, Integer> counts) {
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private static Map<Integer, Integer> sortByKeyDescending(Map<Integer, Integer> counts) {
+        Map<Integer, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.reverseOrder()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bsaoudi.library.book;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a faceted search: the matching books (up to the requested limit) and, over all the matching books,
+ * their count per category code, per release year and per author.
+ */
+public class BookFacetedSearch {
+
+    private final int[] bookIds;
+
+    private final int totalBooks;
+
+    private final Map<String, Integer> categoryCounts;
+
+    private final Map<Integer, Integer> releaseYearCounts;
+
+    private final Map<String, Integer> authorCounts;
+
+    private List<BookDTO> books = Collections.emptyList();
+
+    BookFacetedSearch(int[] bookIds, int totalBooks, Map<String, Integer> categoryCounts,
+                      Map<Integer, Integer> releaseYearCounts, Map<String, Integer> authorCounts) {
+        this.bookIds = bookIds;
+        this.totalBooks = totalBooks;
+        this.categoryCounts = categoryCounts;
+        this.releaseYearCounts = releaseYearCounts;
+        this.authorCounts = authorCounts;
+    }
+
+    int[] getBookIds() {
+        return bookIds;
+    }
+
+    public List<BookDTO> getBooks() {
+        return books;
+    }
+
+    void setBooks(List<BookDTO> books) {
+        this.books = books;
+    }
+
+    public int getTotalBooks() {
+        return totalBooks;
+    }
+
+    public Map<String, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public Map<Integer, Integer> getReleaseYearCounts() {
+        return releaseYearCounts;
+    }
+
+    public Map<String, Integer> getAuthorCounts() {
+        return authorCounts;
+    }
+}
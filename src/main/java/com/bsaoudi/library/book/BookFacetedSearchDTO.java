@@ -0,0 +1,67 @@
+package com.bsaoudi.library.book;
+
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Book Faceted Search Model")
+public class BookFacetedSearchDTO {
+
+    @ApiModelProperty(value = "Matching books, up to the requested limit")
+    private List<BookDTO> books;
+
+    @ApiModelProperty(value = "Total number of matching books")
+    private int totalBooks;
+
+    @ApiModelProperty(value = "Number of matching books per category code")
+    private Map<String, Integer> categories;
+
+    @ApiModelProperty(value = "Number of matching books per release year")
+    private Map<Integer, Integer> releaseYears;
+
+    @ApiModelProperty(value = "Number of matching books per author, for the most frequent authors")
+    private Map<String, Integer> authors;
+
+    public List<BookDTO> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookDTO> books) {
+        this.books = books;
+    }
+
+    public int getTotalBooks() {
+        return totalBooks;
+    }
+
+    public void setTotalBooks(int totalBooks) {
+        this.totalBooks = totalBooks;
+    }
+
+    public Map<String, Integer> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<String, Integer> categories) {
+        this.categories = categories;
+    }
+
+    public Map<Integer, Integer> getReleaseYears() {
+        return releaseYears;
+    }
+
+    public void setReleaseYears(Map<Integer, Integer> releaseYears) {
+        this.releaseYears = releaseYears;
+    }
+
+    public Map<String, Integer> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(Map<String, Integer> authors) {
+        this.authors = authors;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.bsaoudi.library.book;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Book Import Error Model")
+public class BookImportErrorDTO {
+
+    @ApiModelProperty(value = "Line of the rejected row in the imported file, or record number for a MARC21 file")
+    private final long line;
+
+    @ApiModelProperty(value = "ISBN of the rejected row, if it could be read")
+    private final String isbn;
+
+    @ApiModelProperty(value = "Reason of the rejection")
+    private final String reason;
+
+    public BookImportErrorDTO(long line, String isbn, String reason) {
+        this.line = line;
+        this.isbn = isbn;
+        this.reason = reason;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+}
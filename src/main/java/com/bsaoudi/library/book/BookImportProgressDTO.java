@@ -0,0 +1,71 @@
+package com.bsaoudi.library.book;
+
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Book Import Progress Model")
+public class BookImportProgressDTO {
+
+    @ApiModelProperty(value = "Number of rows read so far")
+    private final long read;
+
+    @ApiModelProperty(value = "Number of books inserted so far")
+    private final long imported;
+
+    @ApiModelProperty(value = "Number of rows skipped so far because their ISBN already exists")
+    private final long duplicates;
+
+    @ApiModelProperty(value = "Number of rows rejected so far because they are invalid")
+    private final long rejected;
+
+    @ApiModelProperty(value = "Rejected and duplicate rows of the last chunk, at most 20")
+    private final List<BookImportErrorDTO> errors;
+
+    @ApiModelProperty(value = "True on the last line of the report")
+    private final boolean done;
+
+    @ApiModelProperty(value = "Why the import stopped before the end of the file, the chunks already reported stay imported")
+    private final String failure;
+
+    public BookImportProgressDTO(long read, long imported, long duplicates, long rejected, List<BookImportErrorDTO> errors,
+                                 boolean done, String failure) {
+        this.read = read;
+        this.imported = imported;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.done = done;
+        this.failure = failure;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<BookImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+}
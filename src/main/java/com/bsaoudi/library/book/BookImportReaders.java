@@ -0,0 +1,193 @@
+package com.bsaoudi.library.book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.bsaoudi.library.category.CategoryDTO;
+import com.bsaoudi.library.common.CsvReader;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streaming readers of the catalog files: the rows are parsed one at a time while the file is being uploaded.
+ * A row that cannot be read is returned with its error; a file that cannot be parsed anymore (unclosed quote,
+ * malformed JSON) stops the iteration with an IllegalArgumentException.
+ */
+public final class BookImportReaders {
+
+    public static final String[] CSV_REQUIRED_COLUMNS = {"isbn", "title", "releasedate", "category"};
+
+    private BookImportReaders() {
+    }
+
+    /**
+     * Reads a UTF-8 CSV file whose first line names the columns: isbn, title, author, releaseDate (yyyy-MM-dd),
+     * totalExamplaries and category (the category code), in any order and any case.
+     *
+     * @param in
+     * @return
+     */
+    public static Iterator<BookImportRow> csv(InputStream in) {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        return new RowIterator() {
+
+            private Map<String, Integer> columns;
+
+            @Override
+            protected BookImportRow read() throws IOException {
+                if (columns == null) {
+                    columns = readHeader(csv.readRecord());
+                }
+                List<String> record = csv.readRecord();
+                while (record != null && record.size() == 1 && record.get(0).trim().isEmpty()) {
+                    record = csv.readRecord();
+                }
+                if (record == null) {
+                    return null;
+                }
+                try {
+                    BookDTO book = new BookDTO();
+                    book.setIsbn(field(record, "isbn"));
+                    book.setTitle(field(record, "title"));
+                    book.setAuthor(field(record, "author"));
+                    String releaseDate = field(record, "releasedate");
+                    book.setReleaseDate(releaseDate == null ? null : LocalDate.parse(releaseDate));
+                    String totalExamplaries = field(record, "totalexamplaries");
+                    book.setTotalExamplaries(totalExamplaries == null ? null : Integer.valueOf(totalExamplaries));
+                    String category = field(record, "category");
+                    if (category != null) {
+                        book.setCategory(new CategoryDTO(category, ""));
+                    }
+                    return BookImportRow.of(csv.getRecordLine(), book);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    return BookImportRow.unreadable(csv.getRecordLine(), e.getMessage());
+                }
+            }
+
+            private String field(List<String> record, String column) {
+                Integer index = columns.get(column);
+                if (index == null || index >= record.size()) {
+                    return null;
+                }
+                String value = record.get(index).trim();
+                return value.isEmpty() ? null : value;
+            }
+        };
+    }
+
+    /**
+     * Reads a JSON array of books, with the fields of {@link BookDTO}, or a sequence of books one per line (NDJSON).
+     *
+     * @param objectMapper
+     * @param in
+     * @return
+     */
+    public static Iterator<BookImportRow> json(ObjectMapper objectMapper, InputStream in) {
+        return new RowIterator() {
+
+            private JsonParser parser;
+
+            private boolean array;
+
+            @Override
+            protected BookImportRow read() throws IOException {
+                try {
+                    JsonToken token;
+                    if (parser == null) {
+                        parser = objectMapper.createParser(in);
+                        token = parser.nextToken();
+                        array = token == JsonToken.START_ARRAY;
+                        if (array) {
+                            token = parser.nextToken();
+                        }
+                    } else {
+                        token = parser.nextToken();
+                    }
+                    if (token == null || (array && token == JsonToken.END_ARRAY)) {
+                        return null;
+                    }
+                    long line = parser.getTokenLocation().getLineNr();
+                    JsonNode node = parser.readValueAsTree();
+                    try {
+                        return BookImportRow.of(line, objectMapper.treeToValue(node, BookDTO.class));
+                    } catch (JsonProcessingException e) {
+                        return BookImportRow.unreadable(line, e.getOriginalMessage());
+                    }
+                } catch (JsonParseException e) {
+                    throw new IllegalArgumentException("Line " + e.getLocation().getLineNr() + ": " + e.getOriginalMessage(), e);
+                }
+            }
+        };
+    }
+
+    private static Map<String, Integer> readHeader(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                // ignores the byte order mark some tools write first
+                String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                columns.putIfAbsent(column, i);
+            }
+        }
+        for (String column : CSV_REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Line 1: missing column " + column);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Iterator reading its next row in advance.
+     */
+    private abstract static class RowIterator implements Iterator<BookImportRow> {
+
+        private BookImportRow next;
+
+        private boolean finished;
+
+        /**
+         * @return the next row, null at the end of the file
+         */
+        protected abstract BookImportRow read() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public BookImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BookImportRow row = next;
+            next = null;
+            return row;
+        }
+    }
+}
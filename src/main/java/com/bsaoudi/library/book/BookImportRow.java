@@ -0,0 +1,39 @@
+package com.bsaoudi.library.book;
+
+/**
+ * A row of an imported catalog file: the book read from it, or the reason why it could not be read.
+ */
+public final class BookImportRow {
+
+    private final long line;
+
+    private final BookDTO book;
+
+    private final String error;
+
+    private BookImportRow(long line, BookDTO book, String error) {
+        this.line = line;
+        this.book = book;
+        this.error = error;
+    }
+
+    public static BookImportRow of(long line, BookDTO book) {
+        return new BookImportRow(line, book, null);
+    }
+
+    public static BookImportRow unreadable(long line, String error) {
+        return new BookImportRow(line, null, error);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public BookDTO getBook() {
+        return book;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,170 @@
+package com.bsaoudi.library.book;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.persistence.PersistenceException;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.bsaoudi.library.category.CategoryDTO;
+import com.bsaoudi.library.category.CategoryServiceImpl;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bulk import of new books. The rows are taken from the file by chunks of {@link #CHUNK_SIZE}: the ISBNs of a chunk
+ * are checked by a single IN query, then its books are inserted by JDBC batches in their own transaction and a
+ * progress report is emitted. Only one chunk is held in memory, whatever the size of the file.
+ */
+@Service("bookImportService")
+@RequiredArgsConstructor
+public class BookImportService {
+
+    public static final int CHUNK_SIZE = 500;
+
+    public static final int MAX_REPORTED_ERRORS = 20;
+
+    private final BookServiceImpl bookService;
+
+    private final CategoryServiceImpl categoryService;
+
+    private final BookMapper bookMapper;
+
+    /**
+     * Imports the rows. A chunk is committed before the next one is read, so when the file cannot be read to the
+     * end the chunks already reported stay imported.
+     *
+     * @param rows
+     * @param progressListener called after each chunk, and once more at the end with done set to true
+     */
+    public void importBooks(Iterator<BookImportRow> rows, Consumer<BookImportProgressDTO> progressListener) {
+        Set<String> categoryCodes = categoryService.getCategorySnapshot().getCategories().stream()
+                .map(CategoryDTO::getCode).collect(Collectors.toSet());
+        ImportCounters counters = new ImportCounters();
+        List<BookImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        String failure = null;
+        try {
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, categoryCodes, counters, progressListener);
+                }
+            }
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            failure = e.getMessage();
+        }
+        // the last rows, or the rows read before the failure
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, categoryCodes, counters, progressListener);
+        }
+        progressListener.accept(counters.progress(new ArrayList<>(), true, failure));
+    }
+
+    private void importChunk(List<BookImportRow> chunk, Set<String> categoryCodes, ImportCounters counters,
+                             Consumer<BookImportProgressDTO> progressListener) {
+        List<BookImportErrorDTO> errors = importRows(chunk, categoryCodes, counters);
+        chunk.clear();
+        progressListener.accept(counters.progress(errors, false, null));
+    }
+
+    private List<BookImportErrorDTO> importRows(List<BookImportRow> chunk, Set<String> categoryCodes, ImportCounters counters) {
+        counters.read += chunk.size();
+        List<BookImportErrorDTO> errors = new ArrayList<>();
+        Map<String, BookImportRow> rowsByIsbn = new LinkedHashMap<>();
+        for (BookImportRow row : chunk) {
+            String reason = row.getError() != null ? row.getError() : validate(row.getBook(), categoryCodes);
+            if (reason != null) {
+                counters.rejected++;
+                report(errors, row, reason);
+            } else if (rowsByIsbn.putIfAbsent(row.getBook().getIsbn().trim(), row) != null) {
+                counters.duplicates++;
+                report(errors, row, "ISBN already in the file");
+            }
+        }
+
+        Set<String> existingIsbns = bookService.findExistingIsbns(rowsByIsbn.keySet());
+        List<Book> books = new ArrayList<>(rowsByIsbn.size());
+        for (Map.Entry<String, BookImportRow> entry : rowsByIsbn.entrySet()) {
+            if (existingIsbns.contains(entry.getKey())) {
+                counters.duplicates++;
+                report(errors, entry.getValue(), "ISBN already in the catalog");
+            } else {
+                BookDTO bookDTO = entry.getValue().getBook();
+                bookDTO.setIsbn(entry.getKey());
+                if (bookDTO.getTotalExamplaries() == null) {
+                    bookDTO.setTotalExamplaries(1);
+                }
+                books.add(bookMapper.toBook(bookDTO));
+            }
+        }
+        if (books.isEmpty()) {
+            return errors;
+        }
+        try {
+            bookService.saveBooks(books);
+            counters.imported += books.size();
+        } catch (DataAccessException | PersistenceException e) {
+            // e.g. an ISBN added by someone else since the check: the whole chunk is rolled back
+            counters.rejected += books.size();
+            report(errors, chunk.get(0), "Chunk not imported: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+        return errors;
+    }
+
+    private static String validate(BookDTO book, Set<String> categoryCodes) {
+        if (book == null) {
+            return "Empty row";
+        }
+        if (isBlank(book.getIsbn())) {
+            return "Missing ISBN";
+        }
+        if (isBlank(book.getTitle())) {
+            return "Missing title";
+        }
+        if (book.getReleaseDate() == null) {
+            return "Missing release date";
+        }
+        if (book.getCategory() == null || !categoryCodes.contains(book.getCategory().getCode())) {
+            return "Unknown category";
+        }
+        if (book.getTotalExamplaries() != null && book.getTotalExamplaries() < 1) {
+            return "The total examplaries must be at least 1";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static void report(List<BookImportErrorDTO> errors, BookImportRow row, String reason) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new BookImportErrorDTO(row.getLine(), row.getBook() != null ? row.getBook().getIsbn() : null, reason));
+        }
+    }
+
+    private static final class ImportCounters {
+
+        private long read;
+
+        private long imported;
+
+        private long duplicates;
+
+        private long rejected;
+
+        private BookImportProgressDTO progress(List<BookImportErrorDTO> errors, boolean done, String failure) {
+            return new BookImportProgressDTO(read, imported, duplicates, rejected, errors, done, failure);
+        }
+    }
+}
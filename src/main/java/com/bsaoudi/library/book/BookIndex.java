@@ -0,0 +1,16 @@
+package com.bsaoudi.library.book;
+
+import java.util.Collection;
+
+/**
+ * In-memory structure derived from the books of the catalog.
+ * The indexes are built at startup and kept up to date by {@link BookServiceImpl} once its writes are committed.
+ */
+public interface BookIndex {
+
+    public void rebuild(Collection<Book> books);
+
+    public void index(Book book);
+
+    public void remove(Integer bookId);
+}
@@ -0,0 +1,34 @@
+package com.bsaoudi.library.book;
+
+import java.time.LocalDate;
+
+import com.bsaoudi.library.category.Category;
+import com.bsaoudi.library.category.CategoryMapper;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Book to DTO mappings, implemented by MapStruct at compile time.
+ */
+@Mapper(componentModel = "spring", uses = CategoryMapper.class, imports = {Category.class, LocalDate.class},
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface BookMapper {
+
+    public BookDTO toBookDTO(Book book);
+
+    /**
+     * The category of the book is only referenced by its code, and the register date is the current day.
+     * The available examplaries are maintained by the checkouts, never taken from a DTO.
+     *
+     * @param bookDTO
+     * @return
+     */
+    @Mapping(target = "category", expression = "java(new Category(bookDTO.getCategory().getCode(), \"\"))")
+    @Mapping(target = "registerDate", expression = "java(LocalDate.now())")
+    @Mapping(target = "titleKey", ignore = true)
+    @Mapping(target = "authorKey", ignore = true)
+    @Mapping(target = "availableExamplaries", ignore = true)
+    @Mapping(target = "loans", ignore = true)
+    public Book toBook(BookDTO bookDTO);
+}
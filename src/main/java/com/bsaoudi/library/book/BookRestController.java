@@ -1,16 +1,22 @@
 package com.bsaoudi.library.book;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
-import com.bsaoudi.library.category.Category;
-import com.bsaoudi.library.category.CategoryDTO;
+import com.bsaoudi.library.common.KeysetCursor;
+import com.bsaoudi.library.common.NdjsonWriter;
+import com.bsaoudi.library.common.SliceDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
@@ -23,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import io.swagger.annotations.Api;
@@ -40,6 +47,16 @@ public class BookRestController {
 
     private final BookServiceImpl bookService;
 
+    private final BookSuggester bookSuggester;
+
+    private final BookImportService bookImportService;
+
+    private final Marc21ImportPipeline marc21ImportPipeline;
+
+    private final BookMapper bookMapper;
+
+    private final ObjectMapper objectMapper;
+
     @PostMapping("/addBook")
     @ApiOperation(value = "Add a new Book in the Library", response = BookDTO.class)
     @ApiResponses(value = { @ApiResponse(code = 409, message = "Conflict: the book already exist"),
@@ -47,34 +64,111 @@ public class BookRestController {
             @ApiResponse(code = 304, message = "Not Modified: the book is unsuccessfully inserted") })
     public ResponseEntity<BookDTO> createNewBook(@RequestBody BookDTO bookDTORequest) {
         //, UriComponentsBuilder uriComponentBuilder
-        Book existingBook = bookService.findBookByIsbn(bookDTORequest.getIsbn());
+        BookDTO existingBook = bookService.findBookByIsbn(bookDTORequest.getIsbn());
         if (existingBook != null) {
             return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-        Book bookRequest = mapBookDTOToBook(bookDTORequest);
+        Book bookRequest = bookMapper.toBook(bookDTORequest);
         Book book = bookService.saveBook(bookRequest);
         if (book != null && book.getId() != null) {
-            BookDTO bookDTO = mapBookToBookDTO(book);
+            BookDTO bookDTO = bookMapper.toBookDTO(book);
             return new ResponseEntity<>(bookDTO, HttpStatus.CREATED);
         }
         return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
 
     }
 
+    /**
+     * Imports a CSV file of new books, whose first line names the columns: isbn, title, author, releaseDate,
+     * totalExamplaries and category. The file is read while it is uploaded, and the progress is streamed back as
+     * newline delimited JSON, one line per chunk of books committed.
+     *
+     * @param csv
+     * @return
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @ApiOperation(value = "Import new Books from a CSV file, the progress being reported as one JSON line per chunk",
+            response = BookImportProgressDTO.class)
+    @ApiResponse(code = 200, message = "Ok: the import is running, see the progress lines")
+    public ResponseEntity<StreamingResponseBody> importBooksFromCsv(InputStream csv) {
+        return importBooks(BookImportReaders.csv(csv));
+    }
+
+    /**
+     * Imports a JSON array of new books, with the fields of addBook, or one JSON book per line.
+     *
+     * @param json
+     * @return
+     */
+    @PostMapping(value = "/import", consumes = {"application/json", "application/x-ndjson"})
+    @ApiOperation(value = "Import new Books from a JSON array, the progress being reported as one JSON line per chunk",
+            response = BookImportProgressDTO.class)
+    @ApiResponse(code = 200, message = "Ok: the import is running, see the progress lines")
+    public ResponseEntity<StreamingResponseBody> importBooksFromJson(InputStream json) {
+        return importBooks(BookImportReaders.json(objectMapper, json));
+    }
+
+    /**
+     * Imports a MARC21 file (ISO 2709) of new books: the isbn is read from 020, the author from 100, the title from
+     * 245, the release year from 260 or 264 and the category from the Dewey class of 082. The records are parsed in
+     * parallel while the file is uploaded.
+     *
+     * @param marc
+     * @param defaultCategory
+     * @return
+     */
+    @PostMapping(value = "/import", consumes = {"application/marc", "application/octet-stream"})
+    @ApiOperation(value = "Import new Books from a MARC21 file, the progress being reported as one JSON line per chunk",
+            response = BookImportProgressDTO.class)
+    @ApiResponse(code = 200, message = "Ok: the import is running, see the progress lines")
+    public ResponseEntity<StreamingResponseBody> importBooksFromMarc21(InputStream marc,
+            @RequestParam(value = "defaultCategory", required = false) String defaultCategory) {
+        StreamingResponseBody body = out -> {
+            try (Marc21ImportPipeline.Rows rows = marc21ImportPipeline.open(marc, defaultCategory)) {
+                writeImportProgress(rows, out);
+            }
+        };
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> importBooks(Iterator<BookImportRow> rows) {
+        StreamingResponseBody body = out -> writeImportProgress(rows, out);
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeImportProgress(Iterator<BookImportRow> rows, OutputStream out) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, out);
+        bookImportService.importBooks(rows, progress -> {
+            writer.write(progress);
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.finish();
+    }
+
     @PutMapping("/updateBook")
     @ApiOperation(value = "Update/Modify an existing Book in the Library", response = BookDTO.class)
     @ApiResponses(value = { @ApiResponse(code = 404, message = "Not Found : the book does not exist"),
             @ApiResponse(code = 200, message = "Ok: the book is successfully updated"),
+            @ApiResponse(code = 409, message = "Conflict: more examplaries are on loan than the new total"),
             @ApiResponse(code = 304, message = "Not Modified: the book is unsuccessfully updated") })
     public ResponseEntity<BookDTO> updateBook(@RequestBody BookDTO bookDTORequest) {
         //, UriComponentsBuilder uriComponentBuilder
         if (!bookService.checkIfIdExists(bookDTORequest.getId())) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        Book bookRequest = mapBookDTOToBook(bookDTORequest);
-        Book book = bookService.updateBook(bookRequest);
+        Book bookRequest = bookMapper.toBook(bookDTORequest);
+        Book book;
+        try {
+            book = bookService.updateBook(bookRequest);
+        } catch (ExamplariesOnLoanException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         if (book != null) {
-            BookDTO bookDTO = mapBookToBookDTO(book);
+            BookDTO bookDTO = bookMapper.toBookDTO(book);
             return new ResponseEntity<>(bookDTO, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
@@ -89,25 +183,117 @@ public class BookRestController {
     }
 
     @GetMapping("/searchByTitle")
-    @ApiOperation(value="Search Books in the Library by title", response = List.class)
+    @ApiOperation(value="Search Books in the Library by title, ignoring case and accents. "
+            + "In fuzzy mode, the words of the title or the author may contain typos, the closest books come first", response = List.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Ok: successful research"),
             @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 400, message = "Bad Request: maxEdits must be 1 or 2"),
     })
     public ResponseEntity<List<BookDTO>> searchBookByTitle(@RequestParam("title") String title,
+                                                           @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy,
+                                                           @RequestParam(value = "maxEdits", defaultValue = "2") int maxEdits,
                                                            UriComponentsBuilder uriComponentBuilder) {
-        List<Book> books = bookService.findBooksByTitleOrPartTitle(title);
-        if (!CollectionUtils.isEmpty(books)) {
+        if (fuzzy && (maxEdits < 1 || maxEdits > BookTermDictionary.MAX_EDITS)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<BookDTO> bookDTOs = fuzzy ? bookService.findBooksByFuzzyTitleOrAuthor(title, maxEdits)
+                : bookService.findBooksByTitleOrPartTitle(title);
+        if (!CollectionUtils.isEmpty(bookDTOs)) {
             // on retire tous les élts null que peut contenir cette liste => pour éviter les
             // NPE par la suite
-            books.removeAll(Collections.singleton(null));
-            List<BookDTO> bookDTOs = books.stream().map(this::mapBookToBookDTO)
-                    .collect(Collectors.toList());
+            bookDTOs.removeAll(Collections.singleton(null));
             return new ResponseEntity<>(bookDTOs, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @GetMapping("/searchByTitle/page")
+    @ApiOperation(value="Search Books in the Library by title, ignoring case and accents, one page at a time. "
+            + "Pass the nextCursor of a page to get the following one", response = SliceDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ok: successful research"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 400, message = "Bad Request: malformed cursor"),
+    })
+    public ResponseEntity<SliceDTO<BookDTO>> searchBookByTitlePage(@RequestParam("title") String title,
+                                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                                   @RequestParam(value = "size", defaultValue = "20") int size) {
+        Integer lastId;
+        try {
+            lastId = KeysetCursor.decodeId(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return toSliceResponse(bookService.findBooksByTitleOrPartTitle(title, lastId, size));
+    }
+
+    @GetMapping("/searchByTitle/stream")
+    @ApiOperation(value="Stream the Books of the Library matching a title, ignoring case and accents, "
+            + "one JSON book per line", response = BookDTO.class)
+    @ApiResponse(code = 200, message = "Ok: successfully streamed")
+    public ResponseEntity<StreamingResponseBody> streamBookByTitle(@RequestParam("title") String title) {
+        StreamingResponseBody body = out -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, out);
+            bookService.streamBooksByTitleOrPartTitle(title, writer::write);
+            writer.finish();
+        };
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/books")
+    @ApiOperation(value="List the Books of the Library ordered by id, one page at a time. "
+            + "Pass the nextCursor of a page to get the following one", response = SliceDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ok: successfully listed"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 400, message = "Bad Request: malformed cursor"),
+    })
+    public ResponseEntity<SliceDTO<BookDTO>> listBooks(@RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "size", defaultValue = "20") int size) {
+        Integer lastId;
+        try {
+            lastId = KeysetCursor.decodeId(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return toSliceResponse(bookService.getBooks(lastId, size));
+    }
+
+    @GetMapping("/suggest")
+    @ApiOperation(value="Suggest titles and authors starting with a prefix, the most borrowed first", response = List.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ok: successful research"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
+    })
+    public ResponseEntity<List<BookSuggestionDTO>> suggest(@RequestParam("prefix") String prefix,
+                                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        List<BookSuggestionDTO> suggestions = bookSuggester.suggest(prefix, limit);
+        if (!suggestions.isEmpty()) {
+            return new ResponseEntity<>(suggestions, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @GetMapping("/facetedSearch")
+    @ApiOperation(value="Search Books in the Library by title, author, category and release year, "
+            + "with the number of matching books per category, release year and author", response = BookFacetedSearchDTO.class)
+    @ApiResponse(code = 200, message = "Ok: successful research")
+    public ResponseEntity<BookFacetedSearchDTO> facetedSearch(@RequestParam(value = "title", required = false) String title,
+                                                              @RequestParam(value = "author", required = false) String author,
+                                                              @RequestParam(value = "category", required = false) String categoryCode,
+                                                              @RequestParam(value = "releaseYear", required = false) Integer releaseYear,
+                                                              @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        BookFacetedSearch search = bookService.findBooksWithFacets(title, author, categoryCode, releaseYear, limit);
+        BookFacetedSearchDTO searchDTO = new BookFacetedSearchDTO();
+        searchDTO.setBooks(search.getBooks());
+        searchDTO.setTotalBooks(search.getTotalBooks());
+        searchDTO.setCategories(search.getCategoryCounts());
+        searchDTO.setReleaseYears(search.getReleaseYearCounts());
+        searchDTO.setAuthors(search.getAuthorCounts());
+        return new ResponseEntity<>(searchDTO, HttpStatus.OK);
+    }
+
     @GetMapping("/searchByIsbn")
     @ApiOperation(value="Search a Book in the Library by its isbn", response = BookDTO.class)
     @ApiResponses(value = {
@@ -116,41 +302,19 @@ public class BookRestController {
     })
     public ResponseEntity<BookDTO> searchBookByIsbn(@RequestParam("isbn") String isbn,
                                                     UriComponentsBuilder uriComponentBuilder) {
-        Book book = bookService.findBookByIsbn(isbn);
-        if (book != null) {
-            BookDTO bookDTO = mapBookToBookDTO(book);
+        BookDTO bookDTO = bookService.findBookByIsbn(isbn);
+        if (bookDTO != null) {
             return new ResponseEntity<>(bookDTO, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    /**
-     * Transform Book to BookDTO
-     *
-     * @param book
-     * @return
-     */
-    private BookDTO mapBookToBookDTO(Book book) {
-        ModelMapper mapper = new ModelMapper();
-        BookDTO bookDTO = mapper.map(book, BookDTO.class);
-        if (book.getCategory() != null) {
-            bookDTO.setCategory(new CategoryDTO(book.getCategory().getCode(), book.getCategory().getLabel()));
+    private ResponseEntity<SliceDTO<BookDTO>> toSliceResponse(Slice<BookDTO> books) {
+        if (!books.hasContent()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
-        return bookDTO;
-    }
-
-    /**
-     * Transform BookDTO to Book
-     *
-     * @param bookDTO
-     * @return
-     */
-    private Book mapBookDTOToBook(BookDTO bookDTO) {
-        ModelMapper mapper = new ModelMapper();
-        Book book = mapper.map(bookDTO, Book.class);
-        book.setCategory(new Category(bookDTO.getCategory().getCode(), ""));
-        book.setRegisterDate(LocalDate.now());
-        return book;
+        SliceDTO<BookDTO> slice = SliceDTO.of(books, Function.identity(), book -> KeysetCursor.encode(book.getId()));
+        return new ResponseEntity<>(slice, HttpStatus.OK);
     }
 
 }
@@ -1,51 +1,311 @@
 package com.bsaoudi.library.book;
 
+import com.bsaoudi.library.common.KeysetCursor;
+import com.bsaoudi.library.common.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * The searches run in read-only transactions: Spring sets the Hibernate session read-only, so the loaded books keep
+ * no snapshot for dirty checking, and its flush mode MANUAL, so no flush precedes the queries. The books are mapped
+ * to DTOs inside the transaction, open-session-in-view being disabled.
+ */
 @Service("bookService")
 @Transactional
 @RequiredArgsConstructor
 public class BookServiceImpl implements IBookService {
 
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final IBookDao bookDao;
 
+    private final BookBatchDao bookBatchDao;
+
+    private final BookTitleIndex bookTitleIndex;
+
+    private final BookSuggester bookSuggester;
+
+    private final BookTermDictionary bookTermDictionary;
+
+    private final BookFacetIndex bookFacetIndex;
+
+    private final List<BookIndex> bookIndexes;
+
+    private final BookMapper bookMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Loads all the books in the in-memory indexes once the application is started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndexes() {
+        Map<Integer, Integer> loansByBook = new HashMap<>();
+        for (Object[] row : bookDao.countLoansByBook()) {
+            loansByBook.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        bookSuggester.loadLoanCounts(loansByBook);
+        List<Book> books = bookDao.findAll();
+        bookIndexes.forEach(index -> index.rebuild(books));
+    }
+
+    /**
+     * Saves a new book, all its examplaries being available.
+     */
     @Override
     public Book saveBook(Book book) {
-        return bookDao.save(book);
+        if (book.getAvailableExamplaries() == null) {
+            book.setAvailableExamplaries(book.getTotalExamplaries());
+        }
+        Book savedBook = bookDao.save(book);
+        TransactionHooks.afterCommit(() -> bookIndexes.forEach(index -> index.index(savedBook)));
+        return savedBook;
     }
 
+    /**
+     * Saves new books, all their examplaries being available. The inserts are sent by JDBC batches, and the
+     * persistence context is emptied afterwards so that importing chunk after chunk does not fill it.
+     */
+    @Override
+    public void saveBooks(List<Book> books) {
+        for (Book book : books) {
+            if (book.getAvailableExamplaries() == null) {
+                book.setAvailableExamplaries(book.getTotalExamplaries());
+            }
+        }
+        bookDao.saveAll(books);
+        entityManager.flush();
+        entityManager.clear();
+        TransactionHooks.afterCommit(() -> books.forEach(book -> bookIndexes.forEach(index -> index.index(book))));
+    }
+
+    /**
+     * @return the ISBNs among the given ones which are already in the catalog
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        return isbns.isEmpty() ? new HashSet<>() : new HashSet<>(bookDao.findExistingIsbns(isbns));
+    }
+
+    /**
+     * Updates the book. A change of the total examplaries changes the available ones by the same amount. The
+     * available examplaries are not updatable through the entity, the saved book gets the ones of the database.
+     *
+     * @throws ExamplariesOnLoanException if more examplaries are on loan than the new total
+     */
     @Override
     public Book updateBook(Book book) {
-        return bookDao.save(book);
+        if (book.getId() != null) {
+            lockInCache(Collections.singleton(book.getId()));
+            if (book.getTotalExamplaries() != null
+                    && !bookBatchDao.resizeExamplaries(book.getId(), book.getTotalExamplaries())) {
+                throw new ExamplariesOnLoanException(book.getId(), book.getTotalExamplaries());
+            }
+            book.setAvailableExamplaries(bookBatchDao.findAvailableExamplaries(book.getId()));
+        }
+        Book savedBook = bookDao.save(book);
+        TransactionHooks.afterCommit(() -> bookIndexes.forEach(index -> index.index(savedBook)));
+        return savedBook;
+    }
+
+    /**
+     * Takes one available examplary of the book for a new loan.
+     *
+     * @return false if no examplary is available, or the book does not exist
+     */
+    @Override
+    public boolean reserveExamplary(Integer bookId) {
+        lockInCache(Collections.singleton(bookId));
+        return bookBatchDao.reserveExamplary(bookId);
+    }
+
+    @Override
+    public void releaseExamplary(Integer bookId) {
+        lockInCache(Collections.singleton(bookId));
+        bookBatchDao.releaseExamplary(bookId);
+    }
+
+    /**
+     * Reserves examplaries of several books with one JDBC batch.
+     *
+     * @return the ids of the books which have not enough available examplaries
+     */
+    @Override
+    public Set<Integer> reserveExamplaries(Map<Integer, Integer> examplariesByBook) {
+        lockInCache(examplariesByBook.keySet());
+        return bookBatchDao.reserveExamplaries(examplariesByBook);
+    }
+
+    @Override
+    public void releaseExamplaries(Map<Integer, Integer> examplariesByBook) {
+        lockInCache(examplariesByBook.keySet());
+        bookBatchDao.releaseExamplaries(examplariesByBook);
+    }
+
+    /**
+     * Soft-locks in the second-level cache the books whose examplaries are about to be updated by JDBC, as Hibernate
+     * does for its own updates. Until the end of the transaction the locked books are read from the database and
+     * not cached; afterwards only the sessions opened after the unlock may cache them again, so a book loaded
+     * before the commit cannot put back its previous examplaries.
+     *
+     * @param bookIds
+     */
+    private void lockInCache(Collection<Integer> bookIds) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Book.class);
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        if (cache == null) {
+            return;
+        }
+        Map<Object, SoftLock> locks = new HashMap<>();
+        for (Integer bookId : bookIds) {
+            Object key = cache.generateCacheKey(bookId, persister, session.getFactory(), session.getTenantIdentifier());
+            locks.put(key, cache.lockItem(session, key, null));
+        }
+        TransactionHooks.afterCompletion(() -> locks.forEach((key, lock) -> cache.unlockItem(session, key, lock)));
     }
 
     @Override
     public void deleteBook(Integer bookId) {
         bookDao.deleteById(bookId);
+        TransactionHooks.afterCommit(() -> bookIndexes.forEach(index -> index.remove(bookId)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean checkIfIdExists(Integer id) {
         return bookDao.existsById(id);
     }
 
     @Override
-    public List<Book> findBooksByTitleOrPartTitle(String title) {
-        return
-                bookDao.findByTitleLikeIgnoreCase((new StringBuilder()).append("%").append(title).append("%").toString());
+    @Transactional(readOnly = true)
+    public List<BookDTO> findBooksByTitleOrPartTitle(String title) {
+        return findBooksByIds(bookTitleIndex.search(title));
+    }
+
+    /**
+     * Returns the books whose title contains the term and whose id is greater than the last id of the previous page.
+     * The ids returned by the title index being sorted, the page is a binary search and a copy of the next ids.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookDTO> findBooksByTitleOrPartTitle(String title, Integer lastId, int size) {
+        Pageable pageable = KeysetCursor.limit(size);
+        int[] ids = bookTitleIndex.search(title);
+        int from = 0;
+        if (lastId != null) {
+            int position = Arrays.binarySearch(ids, lastId);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(from + pageable.getPageSize(), ids.length);
+        List<BookDTO> books = findBooksByIds(Arrays.copyOfRange(ids, from, to));
+        return new SliceImpl<>(books, pageable, to < ids.length);
+    }
+
+    /**
+     * Hands the books whose title contains the term to the consumer, loading them by chunks of ids so the memory used
+     * does not grow with the result.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBooksByTitleOrPartTitle(String title, Consumer<BookDTO> consumer) {
+        forEachBookByIds(bookTitleIndex.search(title), consumer);
     }
 
     @Override
-    public Book findBookByIsbn(String isbn) {
-        return bookDao.findByIsbnIgnoreCase(isbn);
+    @Transactional(readOnly = true)
+    public Slice<BookDTO> getBooks(Integer lastId, int size) {
+        return bookDao.findByIdGreaterThanOrderByIdAsc(lastId == null ? Integer.MIN_VALUE : lastId, KeysetCursor.limit(size))
+                .map(bookMapper::toBookDTO);
     }
 
     @Override
-    public List<Book> getBooksByCategory(String codeCategory) {
-        return bookDao.findByCategory(codeCategory);
+    @Transactional(readOnly = true)
+    public List<BookDTO> findBooksByFuzzyTitleOrAuthor(String term, int maxEdits) {
+        return findBooksByIds(bookTermDictionary.fuzzySearch(term, maxEdits));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookDTO findBookByIsbn(String isbn) {
+        Book book = bookDao.findByIsbnIgnoreCase(isbn);
+        return book == null ? null : bookMapper.toBookDTO(book);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookDTO> getBooksByCategory(String codeCategory) {
+        return bookDao.findByCategory(codeCategory).stream().map(bookMapper::toBookDTO).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookFacetedSearch findBooksWithFacets(String title, String author, String categoryCode, Integer releaseYear, int limit) {
+        int[] titleBookIds = title != null ? bookTitleIndex.search(title) : null;
+        BookFacetedSearch search = bookFacetIndex.search(titleBookIds, author, categoryCode, releaseYear, limit);
+        search.setBooks(findBooksByIds(search.getBookIds()));
+        return search;
+    }
+
+    /**
+     * Loads the books by chunks of ids, to keep the IN clauses reasonable, and returns them in the order of the ids.
+     *
+     * @param ids
+     * @return
+     */
+    private List<BookDTO> findBooksByIds(int[] ids) {
+        List<BookDTO> books = new ArrayList<>(ids.length);
+        forEachBookByIds(ids, books::add);
+        return books;
+    }
+
+    /**
+     * The books of a chunk are mapped, then the persistence context is cleared: only the DTOs stay in memory.
+     */
+    private void forEachBookByIds(int[] ids, Consumer<BookDTO> consumer) {
+        for (int from = 0; from < ids.length; from += ID_CHUNK_SIZE) {
+            List<Integer> chunk = new ArrayList<>(ID_CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + ID_CHUNK_SIZE, ids.length); i++) {
+                chunk.add(ids[i]);
+            }
+            Map<Integer, Book> booksById = new HashMap<>();
+            bookDao.findAllById(chunk).forEach(book -> booksById.put(book.getId(), book));
+            for (Integer id : chunk) {
+                Book book = booksById.get(id);
+                if (book != null) {
+                    consumer.accept(bookMapper.toBookDTO(book));
+                }
+            }
+            entityManager.clear();
+        }
     }
 }
@@ -0,0 +1,424 @@
+package com.bsaoudi.library.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.bsaoudi.library.common.TextNormalizer;
+
+/**
+ * Prefix autocomplete of the book titles and authors, the most borrowed first.
+ * Each field is held in a radix trie whose nodes keep the best completions of their subtree, so a lookup only walks
+ * the prefix and copies an already ranked array: the response list is the only allocation of a suggestion.
+ */
+@Component
+public class BookSuggester implements BookIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final SuggestionTrie titles = new SuggestionTrie(BookSuggestionDTO.Type.TITLE);
+
+    private final SuggestionTrie authors = new SuggestionTrie(BookSuggestionDTO.Type.AUTHOR);
+
+    private final Map<Integer, IndexedBook> books = new HashMap<>();
+
+    private final Map<Integer, Integer> loanCounts = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the number of loans of each book, used to rank the suggestions. Must be called before {@link #rebuild}.
+     *
+     * @param loansByBook
+     */
+    public void loadLoanCounts(Map<Integer, Integer> loansByBook) {
+        lock.writeLock().lock();
+        try {
+            loanCounts.clear();
+            loanCounts.putAll(loansByBook);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            authors.clear();
+            this.books.clear();
+            for (Book book : books) {
+                if (book != null && book.getId() != null) {
+                    add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+            loanCounts.remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Increases the popularity of the title and the author of a book when a new loan is registered.
+     *
+     * @param bookId
+     */
+    public void recordLoan(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            loanCounts.merge(bookId, 1, Integer::sum);
+            IndexedBook book = books.get(bookId);
+            if (book != null) {
+                titles.adjust(book.titleKey, 1);
+                authors.adjust(book.authorKey, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most {@link #MAX_SUGGESTIONS} titles and authors starting with the prefix, ignoring case and accents.
+     *
+     * @param prefix
+     * @param limit
+     * @return
+     */
+    public List<BookSuggestionDTO> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        int max = Math.min(limit, MAX_SUGGESTIONS);
+        lock.readLock().lock();
+        try {
+            Term[] bestTitles = titles.lookup(key);
+            Term[] bestAuthors = authors.lookup(key);
+            List<BookSuggestionDTO> suggestions = new ArrayList<>(Math.max(0, Math.min(max, bestTitles.length + bestAuthors.length)));
+            int t = 0;
+            int a = 0;
+            while (suggestions.size() < max && (t < bestTitles.length || a < bestAuthors.length)) {
+                if (a == bestAuthors.length || (t < bestTitles.length && Term.RANKING.compare(bestTitles[t], bestAuthors[a]) <= 0)) {
+                    suggestions.add(bestTitles[t++].suggestion);
+                } else {
+                    suggestions.add(bestAuthors[a++].suggestion);
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Book book) {
+        IndexedBook indexed = new IndexedBook(keyOf(book.getTitleKey(), book.getTitle()), keyOf(book.getAuthorKey(), book.getAuthor()));
+        books.put(book.getId(), indexed);
+        int loans = loanCounts.getOrDefault(book.getId(), 0);
+        titles.add(indexed.titleKey, book.getTitle(), loans);
+        authors.add(indexed.authorKey, book.getAuthor(), loans);
+    }
+
+    private void delete(Integer bookId) {
+        IndexedBook indexed = books.remove(bookId);
+        if (indexed != null) {
+            int loans = loanCounts.getOrDefault(bookId, 0);
+            titles.remove(indexed.titleKey, loans);
+            authors.remove(indexed.authorKey, loans);
+        }
+    }
+
+    private static String keyOf(String storedKey, String value) {
+        return storedKey != null ? storedKey : TextNormalizer.normalize(value);
+    }
+
+    private static final class IndexedBook {
+
+        private final String titleKey;
+
+        private final String authorKey;
+
+        private IndexedBook(String titleKey, String authorKey) {
+            this.titleKey = titleKey;
+            this.authorKey = authorKey;
+        }
+    }
+
+    /**
+     * A completion: a distinct title or author, shared by all the books having the same key.
+     */
+    private static final class Term {
+
+        private static final Comparator<Term> RANKING = Comparator.<Term>comparingLong(term -> -term.weight)
+                .thenComparing(term -> term.key);
+
+        private final String key;
+
+        private final BookSuggestionDTO suggestion;
+
+        private int books;
+
+        private long weight;
+
+        private Term(String key, BookSuggestionDTO suggestion) {
+            this.key = key;
+            this.suggestion = suggestion;
+        }
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private static final Term[] NO_TERMS = new Term[0];
+
+        private char[] label;
+
+        private Node[] children = NO_CHILDREN;
+
+        private Term term;
+
+        private Term[] top = NO_TERMS;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char current = children[middle].label[0];
+                if (current < first) {
+                    low = middle + 1;
+                } else if (current > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void addChild(int position, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            children = grown;
+        }
+
+        private void removeChild(Node child) {
+            int position = childIndex(child.label[0]);
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, position);
+            System.arraycopy(children, position + 1, shrunk, position, children.length - position - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Recomputes the best completions of the subtree from the own term and the best completions of the children.
+         */
+        private void refreshTop() {
+            int candidates = term == null ? 0 : 1;
+            for (Node child : children) {
+                candidates += child.top.length;
+            }
+            Term[] merged = new Term[candidates];
+            int count = 0;
+            if (term != null) {
+                merged[count++] = term;
+            }
+            for (Node child : children) {
+                System.arraycopy(child.top, 0, merged, count, child.top.length);
+                count += child.top.length;
+            }
+            Arrays.sort(merged, Term.RANKING);
+            top = merged.length > MAX_SUGGESTIONS ? Arrays.copyOf(merged, MAX_SUGGESTIONS) : merged;
+        }
+    }
+
+    /**
+     * Radix trie of the keys of one field, the edges being labelled by the shared parts of the keys.
+     */
+    private static final class SuggestionTrie {
+
+        private final BookSuggestionDTO.Type type;
+
+        private Node root = new Node(new char[0]);
+
+        private SuggestionTrie(BookSuggestionDTO.Type type) {
+            this.type = type;
+        }
+
+        private void clear() {
+            root = new Node(new char[0]);
+        }
+
+        private Term[] lookup(String prefix) {
+            Node node = root;
+            int i = 0;
+            while (i < prefix.length()) {
+                int position = node.childIndex(prefix.charAt(i));
+                if (position < 0) {
+                    return Node.NO_TERMS;
+                }
+                node = node.children[position];
+                for (int j = 0; j < node.label.length && i < prefix.length(); j++, i++) {
+                    if (node.label[j] != prefix.charAt(i)) {
+                        return Node.NO_TERMS;
+                    }
+                }
+            }
+            return node.top;
+        }
+
+        private void add(String key, String value, long weight) {
+            if (key.isEmpty()) {
+                return;
+            }
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (i < key.length()) {
+                int position = node.childIndex(key.charAt(i));
+                if (position < 0) {
+                    Node leaf = new Node(key.substring(i).toCharArray());
+                    node.addChild(-position - 1, leaf);
+                    node = leaf;
+                    path.add(node);
+                    break;
+                }
+                Node child = node.children[position];
+                int common = 0;
+                while (common < child.label.length && i + common < key.length() && child.label[common] == key.charAt(i + common)) {
+                    common++;
+                }
+                if (common < child.label.length) {
+                    // the key diverges inside the edge: split it
+                    Node middle = new Node(Arrays.copyOf(child.label, common));
+                    child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                    middle.children = new Node[] {child};
+                    node.children[position] = middle;
+                    child = middle;
+                }
+                i += common;
+                node = child;
+                path.add(node);
+            }
+            if (node.term == null) {
+                node.term = new Term(key, new BookSuggestionDTO(value, type));
+            }
+            node.term.books++;
+            node.term.weight += weight;
+            refresh(path);
+        }
+
+        private void remove(String key, long weight) {
+            List<Node> path = find(key);
+            if (path == null) {
+                return;
+            }
+            Node node = path.get(path.size() - 1);
+            node.term.weight -= weight;
+            if (--node.term.books == 0) {
+                node.term = null;
+                compact(path);
+            }
+            refresh(path);
+        }
+
+        private void adjust(String key, long delta) {
+            List<Node> path = find(key);
+            if (path != null) {
+                path.get(path.size() - 1).term.weight += delta;
+                refresh(path);
+            }
+        }
+
+        private List<Node> find(String key) {
+            if (key.isEmpty()) {
+                return null;
+            }
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (i < key.length()) {
+                int position = node.childIndex(key.charAt(i));
+                if (position < 0) {
+                    return null;
+                }
+                node = node.children[position];
+                if (node.label.length > key.length() - i || !key.regionMatches(i, new String(node.label), 0, node.label.length)) {
+                    return null;
+                }
+                i += node.label.length;
+                path.add(node);
+            }
+            return node.term != null ? path : null;
+        }
+
+        /**
+         * Removes the nodes left without term nor child at the end of the path, and merges a node left with a single
+         * child into it, so the trie stays path-compressed.
+         */
+        private void compact(List<Node> path) {
+            for (int k = path.size() - 1; k > 0; k--) {
+                Node node = path.get(k);
+                if (node.term != null) {
+                    return;
+                }
+                if (node.children.length == 0) {
+                    path.get(k - 1).removeChild(node);
+                    path.remove(k);
+                } else if (node.children.length == 1) {
+                    Node child = node.children[0];
+                    char[] label = Arrays.copyOf(node.label, node.label.length + child.label.length);
+                    System.arraycopy(child.label, 0, label, node.label.length, child.label.length);
+                    node.label = label;
+                    node.children = child.children;
+                    node.term = child.term;
+                    node.top = child.top;
+                    return;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void refresh(List<Node> path) {
+            for (int k = path.size() - 1; k >= 0; k--) {
+                path.get(k).refreshTop();
+            }
+        }
+    }
+}
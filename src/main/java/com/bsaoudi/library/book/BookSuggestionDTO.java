@@ -0,0 +1,32 @@
+package com.bsaoudi.library.book;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Book Suggestion Model")
+public class BookSuggestionDTO {
+
+    public enum Type {
+        TITLE, AUTHOR
+    }
+
+    @ApiModelProperty(value = "Suggested title or author")
+    private final String value;
+
+    @ApiModelProperty(value = "Kind of the suggestion: TITLE or AUTHOR")
+    private final Type type;
+
+    public BookSuggestionDTO(String value, Type type) {
+        this.value = value;
+        this.type = type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.bsaoudi.library.book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.bsaoudi.library.common.TextNormalizer;
+
+/**
+ * Sorted dictionary of the words of the book titles and authors, with the posting list of each word.
+ * It serves the typo tolerant search: each word of the query is run as a {@link LevenshteinAutomaton} along the
+ * dictionary, instead of computing an edit distance against every title.
+ */
+@Component
+public class BookTermDictionary implements BookIndex {
+
+    public static final int MAX_EDITS = 2;
+
+    private final NavigableMap<String, IntPostingList> terms = new TreeMap<>();
+
+    private final Map<Integer, String[]> wordsByBook = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            wordsByBook.clear();
+            for (Book book : books) {
+                if (book != null && book.getId() != null) {
+                    add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the books whose title or author contains, for every word of the query, a word within
+     * {@code maxEdits} edits of it. The closest books (smallest sum of distances) come first.
+     * The allowed edits also depend on the length of each word: none up to 2 characters, 1 up to 5.
+     *
+     * @param query
+     * @param maxEdits
+     * @return
+     */
+    public int[] fuzzySearch(String query, int maxEdits) {
+        String[] queryWords = tokenize(TextNormalizer.normalize(query));
+        if (queryWords.length == 0) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> distanceByBook = null;
+            for (String queryWord : queryWords) {
+                int edits = Math.min(Math.min(maxEdits, MAX_EDITS), queryWord.length() <= 2 ? 0 : queryWord.length() <= 5 ? 1 : 2);
+                Map<Integer, Integer> wordDistances = closestBooks(new LevenshteinAutomaton(queryWord, edits));
+                if (distanceByBook == null) {
+                    distanceByBook = wordDistances;
+                } else {
+                    Map<Integer, Integer> both = new HashMap<>();
+                    for (Map.Entry<Integer, Integer> entry : distanceByBook.entrySet()) {
+                        Integer distance = wordDistances.get(entry.getKey());
+                        if (distance != null) {
+                            both.put(entry.getKey(), entry.getValue() + distance);
+                        }
+                    }
+                    distanceByBook = both;
+                }
+                if (distanceByBook.isEmpty()) {
+                    return new int[0];
+                }
+            }
+            Map<Integer, Integer> distances = distanceByBook;
+            return distances.keySet().stream()
+                    .sorted((first, second) -> {
+                        int byDistance = Integer.compare(distances.get(first), distances.get(second));
+                        return byDistance != 0 ? byDistance : Integer.compare(first, second);
+                    })
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the automaton along the sorted terms. The states computed for a term are reused for the prefix it shares
+     * with the next one, and when a prefix cannot match anymore all the terms starting with it are skipped.
+     */
+    private Map<Integer, Integer> closestBooks(LevenshteinAutomaton automaton) {
+        Map<Integer, Integer> distanceByBook = new HashMap<>();
+        int[][] states = new int[16][];
+        states[0] = automaton.start();
+        String previous = "";
+        int validDepth = 0;
+        String term = terms.isEmpty() ? null : terms.firstKey();
+        while (term != null) {
+            int depth = Math.min(commonPrefixLength(previous, term), validDepth);
+            boolean dead = false;
+            while (depth < term.length()) {
+                if (depth + 1 == states.length) {
+                    states = Arrays.copyOf(states, states.length * 2);
+                }
+                states[depth + 1] = automaton.step(states[depth], term.charAt(depth));
+                depth++;
+                if (!automaton.canMatch(states[depth])) {
+                    dead = true;
+                    break;
+                }
+            }
+            previous = term;
+            validDepth = depth;
+            if (dead) {
+                term = terms.ceilingKey(successor(term.substring(0, depth)));
+                continue;
+            }
+            if (automaton.isMatch(states[depth])) {
+                int distance = automaton.distance(states[depth]);
+                IntPostingList books = terms.get(term);
+                for (int i = 0; i < books.size(); i++) {
+                    distanceByBook.merge(books.get(i), distance, Math::min);
+                }
+            }
+            term = terms.higherKey(term);
+        }
+        return distanceByBook;
+    }
+
+    private void add(Book book) {
+        String titleKey = book.getTitleKey() != null ? book.getTitleKey() : TextNormalizer.normalize(book.getTitle());
+        String authorKey = book.getAuthorKey() != null ? book.getAuthorKey() : TextNormalizer.normalize(book.getAuthor());
+        String[] words = tokenize(titleKey + " " + authorKey);
+        wordsByBook.put(book.getId(), words);
+        for (String word : words) {
+            terms.computeIfAbsent(word, w -> new IntPostingList()).add(book.getId());
+        }
+    }
+
+    private void delete(Integer bookId) {
+        String[] words = wordsByBook.remove(bookId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            IntPostingList books = terms.get(word);
+            if (books != null && books.remove(bookId) && books.isEmpty()) {
+                terms.remove(word);
+            }
+        }
+    }
+
+    private static String[] tokenize(String key) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= key.length(); i++) {
+            boolean wordChar = i < key.length() && Character.isLetterOrDigit(key.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = key.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        int i = 0;
+        while (i < length && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the smallest string greater than all the strings starting with the prefix
+     */
+    private static String successor(String prefix) {
+        int last = prefix.length() - 1;
+        while (last >= 0 && prefix.charAt(last) == Character.MAX_VALUE) {
+            last--;
+        }
+        if (last < 0) {
+            return prefix + Character.MAX_VALUE;
+        }
+        return prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.bsaoudi.library.book;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.bsaoudi.library.common.TextNormalizer;
+
+/**
+ * In-memory trigram inverted index over the search keys of the book titles (see {@link TextNormalizer}).
+ * A substring search intersects the posting lists of the trigrams of the searched term, then checks the few
+ * remaining candidates against their title, so the BOOK table is never scanned.
+ */
+@Component
+public class BookTitleIndex implements BookIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<Long, IntPostingList> postings = new HashMap<>();
+
+    private final Map<Integer, String> titles = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the whole content of the index by the given books.
+     *
+     * @param books
+     */
+    @Override
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            titles.clear();
+            for (Book book : books) {
+                if (book != null && book.getId() != null) {
+                    add(book.getId(), titleKeyOf(book));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the title of a book.
+     *
+     * @param book
+     */
+    @Override
+    public void index(Book book) {
+        String key = titleKeyOf(book);
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            add(book.getId(), key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids, sorted ascending, of the books whose title contains the term, ignoring case and accents.
+     *
+     * @param term
+     * @return
+     */
+    public int[] search(String term) {
+        String key = TextNormalizer.normalize(term);
+        lock.readLock().lock();
+        try {
+            if (key.length() < GRAM_SIZE) {
+                return scan(key);
+            }
+            long[] grams = distinctGrams(key);
+            IntPostingList[] lists = new IntPostingList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return NO_IDS;
+                }
+            }
+            Arrays.sort(lists, (first, second) -> Integer.compare(first.size(), second.size()));
+            int[] candidates = lists[0].toArray();
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) {
+                count = lists[i].retainInto(candidates, count);
+            }
+            // all the trigrams may be present without being contiguous, so the title itself has the final say
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (titles.get(candidates[i]).contains(key)) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            return Arrays.copyOf(candidates, kept);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return titles.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] scan(String key) {
+        int[] ids = new int[titles.size()];
+        int count = 0;
+        for (Map.Entry<Integer, String> entry : titles.entrySet()) {
+            if (entry.getValue().contains(key)) {
+                ids[count++] = entry.getKey();
+            }
+        }
+        int[] result = Arrays.copyOf(ids, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void add(Integer bookId, String key) {
+        titles.put(bookId, key);
+        for (long gram : distinctGrams(key)) {
+            postings.computeIfAbsent(gram, g -> new IntPostingList()).add(bookId);
+        }
+    }
+
+    private void delete(Integer bookId) {
+        String key = titles.remove(bookId);
+        if (key == null) {
+            return;
+        }
+        for (long gram : distinctGrams(key)) {
+            IntPostingList list = postings.get(gram);
+            if (list != null && list.remove(bookId) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static long[] distinctGrams(String key) {
+        if (key.length() < GRAM_SIZE) {
+            return new long[0];
+        }
+        long[] grams = new long[key.length() - GRAM_SIZE + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) key.charAt(i) << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static String titleKeyOf(Book book) {
+        return book.getTitleKey() != null ? book.getTitleKey() : TextNormalizer.normalize(book.getTitle());
+    }
+}
@@ -0,0 +1,13 @@
+package com.bsaoudi.library.book;
+
+/**
+ * A new total of examplaries of a book lower than its examplaries on loan: the book is not updated.
+ */
+public class ExamplariesOnLoanException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExamplariesOnLoanException(Integer bookId, Integer totalExamplaries) {
+        super("Book " + bookId + ": more examplaries on loan than the new total " + totalExamplaries);
+    }
+}
@@ -1,10 +1,13 @@
 package com.bsaoudi.library.book;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +17,14 @@ public interface IBookDao extends JpaRepository<Book, Integer> {
 
     public List<Book> findByTitleLikeIgnoreCase(String title);
 
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN ?1")
+    public List<String> findExistingIsbns(Collection<String> isbns);
+
+    public Slice<Book> findByIdGreaterThanOrderByIdAsc(Integer lastId, Pageable pageable);
+
     @Query("SELECT b FROM Book b INNER JOIN b.category cat WHERE cat.code = :code" )
     public List<Book> findByCategory(@Param("code") String codeCategory);
-}
\ No newline at end of file
+
+    @Query("SELECT lo.pk.book.id, COUNT(lo) FROM Loan lo GROUP BY lo.pk.book.id")
+    public List<Object[]> countLoansByBook();
+}
@@ -1,6 +1,12 @@
 package com.bsaoudi.library.book;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Slice;
 
 public interface IBookService {
 
@@ -8,13 +14,35 @@ public interface IBookService {
 
     public Book updateBook(Book book);
 
+    public void saveBooks(List<Book> books);
+
+    public Set<String> findExistingIsbns(Collection<String> isbns);
+
+    public boolean reserveExamplary(Integer bookId);
+
+    public void releaseExamplary(Integer bookId);
+
+    public Set<Integer> reserveExamplaries(Map<Integer, Integer> examplariesByBook);
+
+    public void releaseExamplaries(Map<Integer, Integer> examplariesByBook);
+
     public void deleteBook(Integer bookId);
 
-    public List<Book> findBooksByTitleOrPartTitle(String title);
+    public List<BookDTO> findBooksByTitleOrPartTitle(String title);
+
+    public Slice<BookDTO> findBooksByTitleOrPartTitle(String title, Integer lastId, int size);
+
+    public void streamBooksByTitleOrPartTitle(String title, Consumer<BookDTO> consumer);
 
-    public Book findBookByIsbn(String isbn);
+    public Slice<BookDTO> getBooks(Integer lastId, int size);
+
+    public List<BookDTO> findBooksByFuzzyTitleOrAuthor(String term, int maxEdits);
+
+    public BookDTO findBookByIsbn(String isbn);
 
     public boolean checkIfIdExists(Integer id);
 
-    public List<Book> getBooksByCategory(String codeCategory);
+    public List<BookDTO> getBooksByCategory(String codeCategory);
+
+    public BookFacetedSearch findBooksWithFacets(String title, String author, String categoryCode, Integer releaseYear, int limit);
 }
@@ -0,0 +1,109 @@
+package com.bsaoudi.library.book;
+
+import java.util.Arrays;
+
+/**
+ * Sorted list of primitive book ids, used as posting list by the in-memory book indexes.
+ */
+final class IntPostingList {
+
+    private int[] ids;
+
+    private int size;
+
+    IntPostingList() {
+        this.ids = new int[4];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Adds the id keeping the list sorted. Ids are mostly generated in ascending order, so appending is the fast path.
+     *
+     * @param id
+     * @return false if the id was already present
+     */
+    boolean add(int id) {
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return true;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return false;
+        }
+        int insertion = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+        ids[insertion] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param id
+     * @return false if the id was not present
+     */
+    boolean remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps, in place, the first {@code count} candidates (sorted ascending) which are also in this list.
+     * The lookup gallops forward from the last match, so intersecting a short list with a long one stays cheap.
+     *
+     * @param candidates
+     * @param count
+     * @return the number of remaining candidates
+     */
+    int retainInto(int[] candidates, int count) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < size; i++) {
+            int candidate = candidates[i];
+            int bound = 1;
+            while (from + bound < size && ids[from + bound] < candidate) {
+                bound <<= 1;
+            }
+            int position = Arrays.binarySearch(ids, from, Math.min(from + bound + 1, size), candidate);
+            if (position >= 0) {
+                candidates[kept++] = candidate;
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+        }
+        return kept;
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+    }
+}
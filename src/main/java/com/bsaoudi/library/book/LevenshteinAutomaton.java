@@ -0,0 +1,67 @@
+package com.bsaoudi.library.book;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein automaton accepting the words within {@code maxEdits} edits of a query word.
+ * A state is the vector of the edit distances between the query prefixes and the input read so far, bounded by
+ * {@code maxEdits + 1}; the automaton is run along a sorted term dictionary so that shared prefixes are read once
+ * and whole branches are skipped as soon as the state cannot match anymore.
+ */
+final class LevenshteinAutomaton {
+
+    private final String word;
+
+    private final int maxEdits;
+
+    LevenshteinAutomaton(String word, int maxEdits) {
+        this.word = word;
+        this.maxEdits = maxEdits;
+    }
+
+    int[] start() {
+        int[] state = new int[word.length() + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = Math.min(i, maxEdits + 1);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the state reached from {@code state} by reading the character {@code c}.
+     *
+     * @param state
+     * @param c
+     * @return
+     */
+    int[] step(int[] state, char c) {
+        int[] next = new int[state.length];
+        next[0] = Math.min(state[0] + 1, maxEdits + 1);
+        for (int i = 1; i < state.length; i++) {
+            int cost = word.charAt(i - 1) == c ? 0 : 1;
+            int distance = Math.min(Math.min(next[i - 1] + 1, state[i] + 1), state[i - 1] + cost);
+            next[i] = Math.min(distance, maxEdits + 1);
+        }
+        return next;
+    }
+
+    /**
+     * @param state
+     * @return true if some continuation of the input read so far can still be accepted
+     */
+    boolean canMatch(int[] state) {
+        return Arrays.stream(state).min().orElse(maxEdits + 1) <= maxEdits;
+    }
+
+    /**
+     * @param state
+     * @return the edit distance between the query word and the input read so far
+     */
+    int distance(int[] state) {
+        return state[state.length - 1];
+    }
+
+    boolean isMatch(int[] state) {
+        return distance(state) <= maxEdits;
+    }
+}
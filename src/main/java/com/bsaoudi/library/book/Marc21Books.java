@@ -0,0 +1,152 @@
+package com.bsaoudi.library.book;
+
+import java.time.LocalDate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.bsaoudi.library.category.CategoryDTO;
+
+/**
+ * Mapping of the MARC21 bibliographic fields onto the books of the library:
+ * <ul>
+ * <li>020$a: isbn, without its hyphens and qualifiers such as "(pbk.)"</li>
+ * <li>100$a: author</li>
+ * <li>245$a and 245$b: title and subtitle</li>
+ * <li>260$c, 264$c or else 008/07-10: the year of publication, as its first of January</li>
+ * <li>082$a: category, from the Dewey class</li>
+ * </ul>
+ * The trailing ISBD punctuation (" /", " :", ",", "."...) of the values is removed.
+ */
+public final class Marc21Books {
+
+    private static final Pattern YEAR = Pattern.compile("(\\d{4})");
+
+    private static final Pattern DEWEY = Pattern.compile("^\\s*(\\d{3})(?:\\.(\\d+))?");
+
+    private Marc21Books() {
+    }
+
+    /**
+     * @param record
+     * @param defaultCategory code of the category of the records without a mapped Dewey class, may be null
+     * @return the book described by the record; its fields are null when the record lacks them
+     */
+    public static BookDTO toBookDTO(Marc21Record record, String defaultCategory) {
+        BookDTO book = new BookDTO();
+        book.setIsbn(isbn(record.getSubfield("020", 'a')));
+        book.setAuthor(trimPunctuation(record.getSubfield("100", 'a')));
+        String title = trimPunctuation(record.getSubfield("245", 'a'));
+        String subtitle = trimPunctuation(record.getSubfield("245", 'b'));
+        book.setTitle(title != null && subtitle != null ? title + " : " + subtitle : title);
+        book.setReleaseDate(releaseDate(record));
+        String category = category(record.getSubfield("082", 'a'));
+        if (category == null) {
+            category = defaultCategory;
+        }
+        if (category != null) {
+            book.setCategory(new CategoryDTO(category, ""));
+        }
+        return book;
+    }
+
+    /**
+     * Maps a Dewey class onto the category codes of the library.
+     *
+     * @param dewey
+     * @return the category code, null if the class has no equivalent
+     */
+    static String category(String dewey) {
+        if (dewey == null) {
+            return null;
+        }
+        Matcher matcher = DEWEY.matcher(dewey);
+        if (!matcher.find()) {
+            return null;
+        }
+        int number = Integer.parseInt(matcher.group(1));
+        String decimals = matcher.group(2) == null ? "" : matcher.group(2);
+        if (number == 741 && decimals.startsWith("5")) {
+            return "BDE";
+        }
+        if (number == 398 && decimals.startsWith("2")) {
+            return "CON";
+        }
+        if (number >= 4 && number <= 6) {
+            return "INF";
+        }
+        if (number >= 70 && number <= 79) {
+            return "JOU";
+        }
+        if (number >= 100 && number <= 199) {
+            return "PHI";
+        }
+        if (number >= 320 && number <= 329) {
+            return "POL";
+        }
+        if (number >= 330 && number <= 339) {
+            return "ECO";
+        }
+        if (number >= 300 && number <= 399) {
+            return "SOC";
+        }
+        if (number >= 510 && number <= 519) {
+            return "MAT";
+        }
+        if (number >= 500 && number <= 599) {
+            return "SCI";
+        }
+        if (number >= 800 && number <= 899) {
+            // the last digit of a literature class is its form
+            switch (number % 10) {
+            case 1:
+                return "POE";
+            case 2:
+                return "THE";
+            case 3:
+                return "ROM";
+            default:
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String isbn(String value) {
+        if (value == null) {
+            return null;
+        }
+        String isbn = value.trim().split("\\s+", 2)[0].replace("-", "");
+        return isbn.isEmpty() ? null : isbn;
+    }
+
+    private static LocalDate releaseDate(Marc21Record record) {
+        String date = record.getSubfield("260", 'c');
+        if (date == null) {
+            date = record.getSubfield("264", 'c');
+        }
+        Matcher matcher = YEAR.matcher(date == null ? "" : date);
+        if (matcher.find()) {
+            return LocalDate.of(Integer.parseInt(matcher.group(1)), 1, 1);
+        }
+        String fixedLengthData = record.getControlField("008");
+        if (fixedLengthData != null && fixedLengthData.length() >= 11) {
+            matcher = YEAR.matcher(fixedLengthData.substring(7, 11));
+            if (matcher.matches()) {
+                return LocalDate.of(Integer.parseInt(matcher.group(1)), 1, 1);
+            }
+        }
+        return null;
+    }
+
+    private static String trimPunctuation(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = value.length();
+        while (end > 0 && " /:;,.=".indexOf(value.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String trimmed = value.substring(0, end).trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,247 @@
+package com.bsaoudi.library.book;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads MARC21 files in a pipeline: a framing thread cuts the upload into records using the length of their
+ * leader, the records are decoded and mapped in parallel on one parser thread per core, and the rows come out in
+ * the order of the file to be validated and persisted by chunks by {@link BookImportService}. The queue between the
+ * stages is bounded, so a slow database throttles the reading of the upload instead of buffering it in memory.
+ */
+@Component
+public class Marc21ImportPipeline {
+
+    static final int QUEUE_CAPACITY = 2 * BookImportService.CHUNK_SIZE;
+
+    private static final Future<BookImportRow> END_OF_FILE = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService parsers;
+
+    private final ExecutorService framers;
+
+    public Marc21ImportPipeline() {
+        AtomicInteger parserThreads = new AtomicInteger();
+        this.parsers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "marc21-parser-" + parserThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger framerThreads = new AtomicInteger();
+        this.framers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "marc21-framer-" + framerThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts reading a MARC21 file. The rows are numbered by record, from 1. A file that cannot be framed anymore
+     * (invalid record length, truncated record) stops the iteration with an IllegalArgumentException; a record that
+     * cannot be decoded is only rejected.
+     *
+     * @param in
+     * @param defaultCategory code of the category of the records without a mapped Dewey class, may be null
+     * @return the rows, to close once read or abandoned
+     */
+    public Rows open(InputStream in, String defaultCategory) {
+        Rows rows = new Rows();
+        framers.execute(() -> rows.frame(new BufferedInputStream(in), defaultCategory));
+        return rows;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        framers.shutdownNow();
+        parsers.shutdown();
+        parsers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    static BookImportRow parseRow(long number, byte[] record, String defaultCategory) {
+        try {
+            return BookImportRow.of(number, Marc21Books.toBookDTO(Marc21Record.parse(record), defaultCategory));
+        } catch (IllegalArgumentException e) {
+            return BookImportRow.unreadable(number, e.getMessage());
+        }
+    }
+
+    /**
+     * @param in
+     * @return the next record, null at the end of the file
+     */
+    static byte[] readRecord(InputStream in) throws IOException {
+        int first = in.read();
+        // tolerates the line breaks some tools write between the records
+        while (first == '\n' || first == '\r') {
+            first = in.read();
+        }
+        if (first < 0) {
+            return null;
+        }
+        byte[] length = new byte[5];
+        length[0] = (byte) first;
+        readFully(in, length, 1, length.length - 1);
+        int recordLength = Marc21Record.number(length, 0, length.length);
+        if (recordLength <= Marc21Record.LEADER_LENGTH) {
+            throw new IllegalArgumentException("Invalid record length " + recordLength);
+        }
+        byte[] record = Arrays.copyOf(length, recordLength);
+        readFully(in, record, length.length, recordLength - length.length);
+        if (record[recordLength - 1] != Marc21Record.RECORD_TERMINATOR) {
+            throw new IllegalArgumentException("Record not terminated at its length " + recordLength);
+        }
+        return record;
+    }
+
+    private static void readFully(InputStream in, byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = in.read(bytes, offset, length);
+            if (read < 0) {
+                throw new IllegalArgumentException("Truncated record");
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+
+    /**
+     * The rows of a file being read, in the order of its records.
+     */
+    public final class Rows implements Iterator<BookImportRow>, AutoCloseable {
+
+        private final BlockingQueue<Future<BookImportRow>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final CountDownLatch framed = new CountDownLatch(1);
+
+        private volatile boolean closed;
+
+        private Thread framer;
+
+        private BookImportRow next;
+
+        private boolean finished;
+
+        private void frame(InputStream in, String defaultCategory) {
+            synchronized (this) {
+                framer = Thread.currentThread();
+            }
+            try {
+                frameRecords(in, defaultCategory);
+            } finally {
+                synchronized (this) {
+                    // clears the interrupt of close() before the thread goes back to the pool
+                    framer = null;
+                    Thread.interrupted();
+                }
+                framed.countDown();
+            }
+        }
+
+        private void frameRecords(InputStream in, String defaultCategory) {
+            long number = 0;
+            try {
+                byte[] record;
+                while (!closed && (record = readRecord(in)) != null) {
+                    long recordNumber = ++number;
+                    byte[] bytes = record;
+                    put(parsers.submit(() -> parseRow(recordNumber, bytes, defaultCategory)));
+                }
+                put(END_OF_FILE);
+            } catch (IOException e) {
+                CompletableFuture<BookImportRow> failure = new CompletableFuture<>();
+                failure.completeExceptionally(e);
+                put(failure);
+            } catch (IllegalArgumentException e) {
+                CompletableFuture<BookImportRow> failure = new CompletableFuture<>();
+                failure.completeExceptionally(
+                        new IllegalArgumentException("Record " + (number + 1) + ": " + e.getMessage(), e));
+                put(failure);
+            }
+        }
+
+        private void put(Future<BookImportRow> row) {
+            try {
+                while (!closed && !queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    // waits for the persisting stage, or for the import to be abandoned
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = queue.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Import interrupted"));
+                } catch (ExecutionException e) {
+                    finished = true;
+                    if (e.getCause() instanceof IOException) {
+                        throw new UncheckedIOException((IOException) e.getCause());
+                    }
+                    throw new IllegalArgumentException(e.getCause().getMessage(), e.getCause());
+                }
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public BookImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BookImportRow row = next;
+            next = null;
+            return row;
+        }
+
+        /**
+         * Stops the framing thread and waits for it, so the upload is not read anymore once closed, then drops the
+         * records not parsed yet.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            finished = true;
+            next = null;
+            synchronized (this) {
+                if (framer != null) {
+                    framer.interrupt();
+                }
+            }
+            try {
+                framed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Future<BookImportRow> row;
+            while ((row = queue.poll()) != null) {
+                row.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bsaoudi.library.book;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A MARC21 bibliographic record decoded from its ISO 2709 exchange format: a 24 bytes leader, a directory of 12
+ * bytes entries (tag, length, start) and the variable fields, data fields being made of subfields each introduced
+ * by a 0x1F delimiter and a code.
+ * <p>
+ * The records whose leader declares UTF-8 (position 9 'a') are decoded as such; the MARC-8 ones are decoded as
+ * ISO-8859-1, which keeps their ASCII content and only approximates the diacritics.
+ */
+public final class Marc21Record {
+
+    static final int LEADER_LENGTH = 24;
+
+    static final byte FIELD_TERMINATOR = 0x1E;
+
+    static final byte RECORD_TERMINATOR = 0x1D;
+
+    private static final byte SUBFIELD_DELIMITER = 0x1F;
+
+    private static final int DIRECTORY_ENTRY_LENGTH = 12;
+
+    private final Map<String, String> controlFields;
+
+    private final Map<String, List<Map<Character, String>>> dataFields;
+
+    private Marc21Record(Map<String, String> controlFields, Map<String, List<Map<Character, String>>> dataFields) {
+        this.controlFields = controlFields;
+        this.dataFields = dataFields;
+    }
+
+    /**
+     * Decodes a whole record, leader and record terminator included.
+     *
+     * @param record
+     * @return
+     * @throws IllegalArgumentException if the leader or the directory are malformed
+     */
+    public static Marc21Record parse(byte[] record) {
+        if (record.length < LEADER_LENGTH + 1) {
+            throw new IllegalArgumentException("Record shorter than its leader");
+        }
+        Charset charset = record[9] == 'a' ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+        int baseAddress = number(record, 12, 5);
+        if (baseAddress <= LEADER_LENGTH || baseAddress > record.length) {
+            throw new IllegalArgumentException("Invalid base address of data " + baseAddress);
+        }
+        Map<String, String> controlFields = new HashMap<>();
+        Map<String, List<Map<Character, String>>> dataFields = new HashMap<>();
+        for (int entry = LEADER_LENGTH; entry + DIRECTORY_ENTRY_LENGTH < baseAddress
+                && record[entry] != FIELD_TERMINATOR; entry += DIRECTORY_ENTRY_LENGTH) {
+            String tag = new String(record, entry, 3, StandardCharsets.US_ASCII);
+            int length = number(record, entry + 3, 4);
+            int start = baseAddress + number(record, entry + 7, 5);
+            if (start + length > record.length) {
+                throw new IllegalArgumentException("Field " + tag + " overflows the record");
+            }
+            // the field length counts its terminator
+            int end = length > 0 && record[start + length - 1] == FIELD_TERMINATOR ? start + length - 1 : start + length;
+            if (tag.startsWith("00")) {
+                controlFields.putIfAbsent(tag, new String(record, start, end - start, charset));
+            } else {
+                dataFields.computeIfAbsent(tag, t -> new ArrayList<>(1))
+                        .add(subfields(record, start, end, charset));
+            }
+        }
+        return new Marc21Record(controlFields, dataFields);
+    }
+
+    /**
+     * @param tag
+     * @return the data of the control field (tags 001 to 009), null if it is absent
+     */
+    public String getControlField(String tag) {
+        return controlFields.get(tag);
+    }
+
+    /**
+     * @param tag
+     * @param code
+     * @return the first non blank subfield with this code among the fields with this tag, null if there is none
+     */
+    public String getSubfield(String tag, char code) {
+        for (Map<Character, String> field : dataFields.getOrDefault(tag, Collections.emptyList())) {
+            String value = field.get(code);
+            if (value != null && !value.trim().isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static Map<Character, String> subfields(byte[] record, int start, int end, Charset charset) {
+        Map<Character, String> subfields = new HashMap<>(4);
+        // skips the two indicators
+        int i = start + 2;
+        while (i < end) {
+            if (record[i] != SUBFIELD_DELIMITER || i + 1 >= end) {
+                i++;
+                continue;
+            }
+            char code = (char) record[i + 1];
+            int valueStart = i + 2;
+            int valueEnd = valueStart;
+            while (valueEnd < end && record[valueEnd] != SUBFIELD_DELIMITER) {
+                valueEnd++;
+            }
+            // a repeated subfield keeps its first occurrence
+            subfields.putIfAbsent(code, new String(record, valueStart, valueEnd - valueStart, charset));
+            i = valueEnd;
+        }
+        return subfields;
+    }
+
+    static int number(byte[] bytes, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (i >= bytes.length || bytes[i] < '0' || bytes[i] > '9') {
+                throw new IllegalArgumentException("Invalid number at offset " + offset);
+            }
+            value = value * 10 + bytes[i] - '0';
+        }
+        return value;
+    }
+}
@@ -1,11 +1,26 @@
 package com.bsaoudi.library.category;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import com.bsaoudi.library.common.TextNormalizer;
+
+/**
+ * Reference data, only written by the data scripts: cached read-only in the second-level cache.
+ */
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "category")
 @Table(name = "CATEGORY")
 public class Category {
 
@@ -22,6 +37,8 @@ public class Category {
 
     private String label;
 
+    private String labelKey;
+
     @Id
     @Column(name = "CODE")
     public String getCode() {
@@ -41,6 +58,24 @@ public class Category {
         this.label = label;
     }
 
+    /**
+     * Accent and case insensitive search key of the label, computed at write time.
+     */
+    @Column(name = "LABEL_KEY")
+    public String getLabelKey() {
+        return labelKey;
+    }
+
+    public void setLabelKey(String labelKey) {
+        this.labelKey = labelKey;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void computeSearchKeys() {
+        this.labelKey = TextNormalizer.normalize(label);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
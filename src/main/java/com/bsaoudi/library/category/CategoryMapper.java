@@ -0,0 +1,13 @@
+package com.bsaoudi.library.category;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Category to DTO mapping, implemented by MapStruct at compile time.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CategoryMapper {
+
+    public CategoryDTO toCategoryDTO(Category category);
+}
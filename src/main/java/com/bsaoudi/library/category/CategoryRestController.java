@@ -1,16 +1,16 @@
 package com.bsaoudi.library.category;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.annotations.Api;
@@ -26,35 +26,46 @@ public class CategoryRestController {
     @Autowired
     private CategoryServiceImpl categoryService;
 
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    /**
+     * Lists all the categories from their snapshot, already serialized. The response carries the ETag of the
+     * snapshot, so that a client sending it back in If-None-Match gets a 304 without a body while nothing changed:
+     * Spring MVC compares them when it writes the response entity.
+     *
+     * @return
+     */
     @GetMapping("/allCategories")
-    @ApiOperation(value="List all book categories of the Library", response = List.class)
+    @ApiOperation(value="List all book categories of the Library", response = CategoryDTO.class, responseContainer = "List")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Ok: successfully listed"),
             @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 304, message = "Not Modified: the categories still match the If-None-Match ETag"),
+    })
+    public ResponseEntity<byte[]> getAllBookCategories(){
+        CategorySnapshot snapshot = categoryService.getCategorySnapshot();
+        if (snapshot.getCategories().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok().eTag(snapshot.getEtag()).contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
+    @GetMapping("/searchByLabel")
+    @ApiOperation(value="Search book categories of the Library by label, ignoring case and accents", response = List.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ok: successfull research"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
     })
-    public ResponseEntity<List<CategoryDTO>> getAllBookCategories(){
-        List<Category> categories = categoryService.getAllCategories();
+    public ResponseEntity<List<CategoryDTO>> searchCategoriesByLabel(@RequestParam("label") String label){
+        List<Category> categories = categoryService.findCategoriesByLabel(label);
         if(!CollectionUtils.isEmpty(categories)) {
-            //on retire tous les élts null que peut contenir cette liste
-            categories.removeAll(Collections.singleton(null));
-            List<CategoryDTO> categoryDTOs = categories.stream().map(category -> {
-                return mapCategoryToCategoryDTO(category);
-            }).collect(Collectors.toList());
+            List<CategoryDTO> categoryDTOs = categories.stream().map(categoryMapper::toCategoryDTO)
+                    .collect(Collectors.toList());
             return new ResponseEntity<List<CategoryDTO>>(categoryDTOs, HttpStatus.OK);
         }
         return new ResponseEntity<List<CategoryDTO>>(HttpStatus.NO_CONTENT);
     }
 
-    /**
-     * Transforme un Category en CategoryDTO
-     *
-     * @param book
-     * @return
-     */
-    private CategoryDTO mapCategoryToCategoryDTO(Category category) {
-        ModelMapper mapper = new ModelMapper();
-        CategoryDTO categoryDTO = mapper.map(category, CategoryDTO.class);
-        return categoryDTO;
-    }
-
 }
@@ -1,9 +1,18 @@
 package com.bsaoudi.library.category;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.bsaoudi.library.common.TextNormalizer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service("categoryService")
 public class CategoryServiceImpl implements ICategoryService {
@@ -11,9 +20,53 @@ public class CategoryServiceImpl implements ICategoryService {
     @Autowired
     private ICategoryDao categoryDao;
 
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile CategorySnapshot categorySnapshot;
+
     @Override
     public List<Category> getAllCategories(){
         return categoryDao.findAll();
     }
 
+    @Override
+    public List<Category> findCategoriesByLabel(String label){
+        return categoryDao.findByLabelKeyContaining(TextNormalizer.normalize(label));
+    }
+
+    /**
+     * @return the snapshot of all the categories, built on the first call if the application is not ready yet
+     */
+    @Override
+    public CategorySnapshot getCategorySnapshot() {
+        CategorySnapshot snapshot = categorySnapshot;
+        return snapshot != null ? snapshot : refreshCategorySnapshot();
+    }
+
+    /**
+     * Rebuilds the snapshot of all the categories. The categories are only written by the data scripts, so it is
+     * built once the application is started; a future change of the categories must call it after its commit.
+     * The categories are sorted by code, so the same categories always give the same JSON and ETag.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public CategorySnapshot refreshCategorySnapshot() {
+        List<CategoryDTO> categories = categoryDao.findAll().stream().map(categoryMapper::toCategoryDTO)
+                .sorted(Comparator.comparing(CategoryDTO::getCode))
+                .collect(Collectors.toList());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(categories);
+            CategorySnapshot snapshot = new CategorySnapshot(categories, json,
+                    "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+            categorySnapshot = snapshot;
+            return snapshot;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Categories not serializable", e);
+        }
+    }
+
 }
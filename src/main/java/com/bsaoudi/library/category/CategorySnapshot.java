@@ -0,0 +1,41 @@
+package com.bsaoudi.library.category;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of all the categories, with their JSON serialization and its strong ETag computed once, so that
+ * serving them costs neither a query nor a serialization.
+ */
+public final class CategorySnapshot {
+
+    private final List<CategoryDTO> categories;
+
+    private final byte[] json;
+
+    private final String etag;
+
+    public CategorySnapshot(List<CategoryDTO> categories, byte[] json, String etag) {
+        this.categories = Collections.unmodifiableList(categories);
+        this.json = json;
+        this.etag = etag;
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    /**
+     * @return the serialized categories, shared by all the requests: not to be modified
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * @return the quoted strong ETag of the JSON
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
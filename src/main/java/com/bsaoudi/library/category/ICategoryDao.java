@@ -1,8 +1,25 @@
 package com.bsaoudi.library.category;
 
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+/**
+ * The categories only change with the data scripts, so their queries are kept in the query cache.
+ */
 @Repository
 public interface ICategoryDao extends JpaRepository<Category, Integer> {
+
+    public static final String CACHEABLE = "org.hibernate.cacheable";
+
+    @Override
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    public List<Category> findAll();
+
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    public List<Category> findByLabelKeyContaining(String labelKey);
 }
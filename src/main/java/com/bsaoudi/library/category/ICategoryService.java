@@ -5,4 +5,10 @@ import java.util.List;
 public interface ICategoryService {
 
     public List<Category> getAllCategories();
+
+    public List<Category> findCategoriesByLabel(String label);
+
+    public CategorySnapshot getCategorySnapshot();
+
+    public CategorySnapshot refreshCategorySnapshot();
 }
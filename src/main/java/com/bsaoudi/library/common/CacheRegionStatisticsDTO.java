@@ -0,0 +1,52 @@
+package com.bsaoudi.library.common;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Cache Region Statistics Model")
+public class CacheRegionStatisticsDTO {
+
+    @ApiModelProperty(value = "Name of the second-level cache region: an entity, or the query cache")
+    private final String region;
+
+    @ApiModelProperty(value = "Number of lookups found in the region since the start")
+    private final long hits;
+
+    @ApiModelProperty(value = "Number of lookups not found in the region since the start")
+    private final long misses;
+
+    @ApiModelProperty(value = "Number of entries put in the region since the start")
+    private final long puts;
+
+    @ApiModelProperty(value = "Hits over lookups, 0 without lookups")
+    private final double hitRatio;
+
+    public CacheRegionStatisticsDTO(String region, long hits, long misses, long puts) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.hitRatio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+}
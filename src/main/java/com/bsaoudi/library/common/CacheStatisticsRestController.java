@@ -0,0 +1,54 @@
+package com.bsaoudi.library.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/rest/cache/api")
+@Api(value = "Cache Rest Controller: statistics of the second-level cache")
+public class CacheStatisticsRestController {
+
+    public static final String QUERY_CACHE = "query-cache";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/statistics")
+    @ApiOperation(value = "List the hits and misses of each second-level cache region since the start", response = List.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Ok: successfully listed"),
+            @ApiResponse(code = 204, message = "No Content: the second-level cache is disabled") })
+    public ResponseEntity<List<CacheRegionStatisticsDTO>> getCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionStatisticsDTO> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted()
+                .map(region -> {
+                    CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                    return new CacheRegionStatisticsDTO(region, regionStatistics.getHitCount(),
+                            regionStatistics.getMissCount(), regionStatistics.getPutCount());
+                }).collect(Collectors.toList());
+        if (regions.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        // the query results region is created on the first cacheable query, and not listed with the others
+        regions.add(new CacheRegionStatisticsDTO(QUERY_CACHE, statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        return new ResponseEntity<>(regions, HttpStatus.OK);
+    }
+}
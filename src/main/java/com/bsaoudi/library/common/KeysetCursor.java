@@ -0,0 +1,79 @@
+package com.bsaoudi.library.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Opaque cursors of the keyset paginated endpoints. A cursor carries the sort key of the last returned row, and the
+ * next page is read with a {@code WHERE key > :lastKey ORDER BY key} query, without offset nor count.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String SEPARATOR = "|";
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Encodes the sort key values of the last row of a page.
+     *
+     * @param values
+     * @return
+     */
+    public static String encode(Object... values) {
+        StringBuilder cursor = new StringBuilder();
+        for (Object value : values) {
+            if (cursor.length() > 0) {
+                cursor.append(SEPARATOR);
+            }
+            cursor.append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor built by {@link #encode(Object...)}.
+     *
+     * @param cursor
+     * @param size the number of values expected in the cursor
+     * @return
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static String[] decode(String cursor, int size) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] values = decoded.split("\\" + SEPARATOR, -1);
+        if (values.length != size) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        return values;
+    }
+
+    /**
+     * Decodes a cursor made of a single id, null when there is no cursor (first page).
+     *
+     * @param cursor
+     * @return
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Integer decodeId(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : Integer.valueOf(decode(cursor, 1)[0]);
+    }
+
+    /**
+     * Returns the request of the first {@code size} rows following the cursor, the size being bounded to
+     * {@link #MAX_PAGE_SIZE}.
+     *
+     * @param size
+     * @return
+     */
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+}
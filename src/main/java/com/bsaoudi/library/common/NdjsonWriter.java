@@ -0,0 +1,71 @@
+package com.bsaoudi.library.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Writes objects as newline delimited JSON, one object per line, to a streamed response body.
+ * The lines are flushed every {@link #FLUSH_INTERVAL} objects so the client receives them as chunks while the
+ * result set is still being read.
+ */
+public class NdjsonWriter {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    public static final int FLUSH_INTERVAL = 100;
+
+    private final JsonGenerator generator;
+
+    private int written;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // the lines are separated by the newlines, not by the default space between root values
+        this.generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Writes one line. The IOException is rethrown unchecked so that it can be called from a stream consumer.
+     *
+     * @param value
+     */
+    public void write(Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+            if (++written % FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends the lines written so far to the client at once, e.g. for a progress report.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    /**
+     * Flushes the pending lines, without closing the response stream.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        generator.close();
+    }
+
+    public int getWritten() {
+        return written;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bsaoudi.library.common;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Slice;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Slice Model")
+public class SliceDTO<T> {
+
+    @ApiModelProperty(value = "Rows of the page")
+    private List<T> content;
+
+    @ApiModelProperty(value = "Opaque cursor to pass to get the next page, null on the last page")
+    private String nextCursor;
+
+    @ApiModelProperty(value = "Whether there is a next page")
+    private boolean hasNext;
+
+    public SliceDTO() {
+    }
+
+    public SliceDTO(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Builds the DTO of a slice, the cursor being built from the last row of the slice.
+     *
+     * @param slice
+     * @param mapper
+     * @param cursorOf
+     * @return
+     */
+    public static <E, T> SliceDTO<T> of(Slice<E> slice, Function<E, T> mapper, Function<E, String> cursorOf) {
+        List<E> rows = slice.getContent();
+        String nextCursor = slice.hasNext() && !rows.isEmpty() ? cursorOf.apply(rows.get(rows.size() - 1)) : null;
+        return new SliceDTO<>(rows.stream().map(mapper).collect(Collectors.toList()), nextCursor, slice.hasNext());
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
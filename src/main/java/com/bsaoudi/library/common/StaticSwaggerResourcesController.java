@@ -0,0 +1,45 @@
+package com.bsaoudi.library.common;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import springfox.documentation.swagger.web.SecurityConfiguration;
+import springfox.documentation.swagger.web.SecurityConfigurationBuilder;
+import springfox.documentation.swagger.web.SwaggerResource;
+import springfox.documentation.swagger.web.UiConfiguration;
+import springfox.documentation.swagger.web.UiConfigurationBuilder;
+
+/**
+ * The settings /swagger-ui.html reads at load time, answered by springfox when it is started. With
+ * library.api-docs.static=true (the prod profile), they point the UI at the document generated at build time,
+ * /api-docs.json (see {@link SwaggerConfiguration}).
+ */
+@RestController
+@ConditionalOnProperty(prefix = "library.api-docs", name = "static", havingValue = "true")
+public class StaticSwaggerResourcesController {
+
+    static final String API_DOCS = "/api-docs.json";
+
+    @GetMapping("/swagger-resources")
+    public List<SwaggerResource> swaggerResources() {
+        SwaggerResource resource = new SwaggerResource();
+        resource.setName("default");
+        resource.setUrl(API_DOCS);
+        resource.setSwaggerVersion("2.0");
+        return Collections.singletonList(resource);
+    }
+
+    @GetMapping("/swagger-resources/configuration/ui")
+    public UiConfiguration uiConfiguration() {
+        return UiConfigurationBuilder.builder().build();
+    }
+
+    @GetMapping("/swagger-resources/configuration/security")
+    public SecurityConfiguration securityConfiguration() {
+        return SecurityConfigurationBuilder.builder().build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.bsaoudi.library.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by all the keys: a key always maps to the same lock, so operations on one key are
+ * serialized, while keys mapped to different stripes proceed in parallel. The memory used does not depend on the
+ * number of keys.
+ */
+public class StripedLocks {
+
+    private final Lock[] locks;
+
+    private final int mask;
+
+    /**
+     * @param stripes minimum number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public Lock get(Object key) {
+        return locks[stripe(key)];
+    }
+
+    /**
+     * Returns the distinct locks of the keys, always sorted in the same order: threads taking the locks of several
+     * keys in this order cannot deadlock.
+     *
+     * @param keys
+     * @return
+     */
+    public List<Lock> getAll(Collection<?> keys) {
+        TreeMap<Integer, Lock> byStripe = new TreeMap<>();
+        for (Object key : keys) {
+            int stripe = stripe(key);
+            byStripe.put(stripe, locks[stripe]);
+        }
+        return new ArrayList<>(byStripe.values());
+    }
+
+    private int stripe(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // spreads the consecutive ids over the stripes
+        hash ^= (hash >>> 16);
+        hash *= 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
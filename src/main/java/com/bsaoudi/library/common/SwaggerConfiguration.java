@@ -0,0 +1,104 @@
+package com.bsaoudi.library.common;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+
+import springfox.documentation.builders.ApiInfoBuilder;
+import springfox.documentation.builders.PathSelectors;
+import springfox.documentation.builders.RequestHandlerSelectors;
+import springfox.documentation.service.ApiInfo;
+import springfox.documentation.service.Contact;
+import springfox.documentation.spi.DocumentationType;
+import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
+import springfox.documentation.spring.web.readers.operation.HandlerMethodResolver;
+import springfox.documentation.swagger2.annotations.EnableSwagger2;
+
+/**
+ * Swagger documentation of the REST API, built by springfox at startup from the controllers (/v2/api-docs and
+ * /swagger-ui.html). With library.api-docs.static=true (the prod profile), springfox is not started: the document
+ * generated at build time (ApiDocsGenerator) is served as a file, /api-docs.json, shown by /swagger-ui.html through
+ * {@link StaticSwaggerResourcesController}.
+ * <p>
+ * The components of the application are read from their index (META-INF/spring.components, written at build time
+ * by spring-context-indexer), which has none of the springfox ones: the packages scanned by the springfox
+ * configurations are scanned here again, reading the classpath (see {@link ScannedComponentFilter}).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "library.api-docs", name = "static", havingValue = "false", matchIfMissing = true)
+@EnableSwagger2
+@ComponentScan(basePackages = {
+        "springfox.documentation.schema",
+        "springfox.documentation.spring.web.paths",
+        "springfox.documentation.spring.web.plugins",
+        "springfox.documentation.spring.web.readers.operation",
+        "springfox.documentation.spring.web.readers.parameter",
+        "springfox.documentation.spring.web.scanners",
+        "springfox.documentation.swagger.readers",
+        "springfox.documentation.swagger.schema",
+        "springfox.documentation.swagger.web",
+        "springfox.documentation.swagger2.mappers"},
+        useDefaultFilters = false,
+        includeFilters = @ComponentScan.Filter(type = FilterType.CUSTOM, classes = SwaggerConfiguration.ScannedComponentFilter.class),
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = WebMvcRequestHandlerProvider.class))
+public class SwaggerConfiguration {
+
+    @Bean
+    public Docket api() {
+        return new Docket(DocumentationType.SWAGGER_2)
+                .select()
+                .apis(RequestHandlerSelectors.basePackage("com.bsaoudi.library"))
+                .paths(PathSelectors.any())
+                .build()
+                .apiInfo(apiInfo());
+    }
+
+    /**
+     * The handler methods springfox documents, read from the handler mappings matching with the AntPathMatcher only.
+     * Springfox 2.9 fails on the ones using path patterns, as the actuator ones do whatever
+     * spring.mvc.pathmatch.matching-strategy: this provider replaces the one of springfox, left out of the scan.
+     */
+    @Bean
+    public WebMvcRequestHandlerProvider webMvcRequestHandlerProvider(HandlerMethodResolver methodResolver,
+            List<RequestMappingInfoHandlerMapping> handlerMappings) {
+        return new WebMvcRequestHandlerProvider(methodResolver, handlerMappings.stream()
+                .filter(mapping -> mapping.getPatternParser() == null)
+                .collect(Collectors.toList()));
+    }
+
+    private ApiInfo apiInfo() {
+        return new ApiInfoBuilder().title("Library Spring Boot REST API Documentation")
+                .description("REST APIs For Managing Books loans in a Library")
+                .contact(new Contact("Bilel SAOUDI", "https://bsaoudi.developpez.com/", "bilel.seoudi@gmail.com"))
+                .version("1.0")
+                .build();
+    }
+
+    /**
+     * Matches the components, as the default filter does. Spring reads the index only when all the filters of a scan
+     * match indexed stereotypes, which this one, a custom filter, does not: the packages are scanned.
+     */
+    static class ScannedComponentFilter implements TypeFilter {
+
+        private final TypeFilter componentFilter = new AnnotationTypeFilter(Component.class);
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory)
+                throws IOException {
+            return componentFilter.match(metadataReader, metadataReaderFactory);
+        }
+    }
+}
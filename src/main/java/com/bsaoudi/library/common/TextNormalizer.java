@@ -0,0 +1,69 @@
+package com.bsaoudi.library.common;
+
+import java.text.Normalizer;
+
+/**
+ * Builds the search keys of the catalog: Unicode NFD decomposition, removal of the diacritics and case folding,
+ * so that "Théatre", "THEATRE" and "theatre" share the same key.
+ * The keys are computed once when the entities are written and stored next to the original values.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Returns the search key of a text, an empty string for a null text.
+     *
+     * @param text
+     * @return
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK) {
+                continue;
+            }
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = key.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                key.append(' ');
+                pendingSpace = false;
+            }
+            appendFolded(key, c);
+        }
+        return key.toString();
+    }
+
+    private static void appendFolded(StringBuilder key, char c) {
+        switch (c) {
+            case 'Œ':
+            case 'œ':
+                key.append("oe");
+                break;
+            case 'Æ':
+            case 'æ':
+                key.append("ae");
+                break;
+            case 'ß':
+                key.append("ss");
+                break;
+            case '‘':
+            case '’':
+                key.append('\'');
+                break;
+            default:
+                key.append(Character.toLowerCase(c));
+        }
+    }
+}
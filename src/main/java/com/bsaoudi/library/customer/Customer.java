@@ -2,8 +2,10 @@ package com.bsaoudi.library.customer;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -11,13 +13,25 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.bsaoudi.library.common.TextNormalizer;
 import com.bsaoudi.library.loan.Loan;
 
 @Entity
-@Table(name = "CUSTOMER")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
+@Table(name = "CUSTOMER", indexes = {
+        @Index(name = "IDX_CUSTOMER_LAST_NAME_KEY", columnList = "LAST_NAME_KEY"),
+        @Index(name = "IDX_CUSTOMER_EMAIL_KEY", columnList = "EMAIL_KEY")})
 public class Customer {
 
     private Integer id;
@@ -26,18 +40,23 @@ public class Customer {
 
     private String lastName;
 
+    private String lastNameKey;
+
     private String job;
 
     private String address;
 
     private String email;
 
+    private String emailKey;
+
     private LocalDate creationDate;
 
     Set<Loan> loans = new HashSet<>();
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CUSTOMER_SEQ")
+    @SequenceGenerator(name = "CUSTOMER_SEQ", sequenceName = "CUSTOMER_SEQ", allocationSize = 50)
     @Column(name = "CUSTOMER_ID")
     public Integer getId() {
         return id;
@@ -65,6 +84,18 @@ public class Customer {
         this.lastName = lastName;
     }
 
+    /**
+     * Accent and case insensitive search key of the last name, computed at write time.
+     */
+    @Column(name = "LAST_NAME_KEY")
+    public String getLastNameKey() {
+        return lastNameKey;
+    }
+
+    public void setLastNameKey(String lastNameKey) {
+        this.lastNameKey = lastNameKey;
+    }
+
     @Column(name = "JOB")
     public String getJob() {
         return job;
@@ -92,6 +123,18 @@ public class Customer {
         this.email = email;
     }
 
+    /**
+     * Case insensitive search key of the email, computed at write time: an index cannot serve UPPER(EMAIL).
+     */
+    @Column(name = "EMAIL_KEY")
+    public String getEmailKey() {
+        return emailKey;
+    }
+
+    public void setEmailKey(String emailKey) {
+        this.emailKey = emailKey;
+    }
+
     @Column(name = "CREATION_DATE", nullable = false)
     public LocalDate getCreationDate() {
         return creationDate;
@@ -110,6 +153,21 @@ public class Customer {
         this.loans = loans;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void computeSearchKeys() {
+        this.lastNameKey = TextNormalizer.normalize(lastName);
+        this.emailKey = emailKey(email);
+    }
+
+    /**
+     * @param email
+     * @return the search key of the email, null for a null email
+     */
+    public static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
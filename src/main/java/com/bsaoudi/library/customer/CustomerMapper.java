@@ -0,0 +1,19 @@
+package com.bsaoudi.library.customer;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Customer to DTO mappings, implemented by MapStruct at compile time.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CustomerMapper {
+
+    public CustomerDTO toCustomerDTO(Customer customer);
+
+    @Mapping(target = "lastNameKey", ignore = true)
+    @Mapping(target = "emailKey", ignore = true)
+    @Mapping(target = "loans", ignore = true)
+    public Customer toCustomer(CustomerDTO customerDTO);
+}
@@ -4,25 +4,24 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import com.bsaoudi.library.common.KeysetCursor;
+import com.bsaoudi.library.common.SliceDTO;
+import com.bsaoudi.library.mail.IMailOutboxService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.LocalDate;
-import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @RestController
 @RequiredArgsConstructor
@@ -34,7 +33,9 @@ public class CustomerRestController {
 
     private final CustomerServiceImpl customerService;
 
-    private final JavaMailSender javaMailSender;
+    private final CustomerMapper customerMapper;
+
+    private final IMailOutboxService mailOutboxService;
 
     /**
      * Adds a new customer to the H2 database. If the client already exists, a code is returned indicating that the creation was unsuccessful.
@@ -48,15 +49,15 @@ public class CustomerRestController {
             @ApiResponse(code = 304, message = "Not Modified: the customer is unsuccessfully inserted") })
     public ResponseEntity<CustomerDTO> createNewCustomer(@RequestBody CustomerDTO customerDTORequest) {
         //, UriComponentsBuilder uriComponentBuilder
-        Customer existingCustomer = customerService.findCustomerByEmail(customerDTORequest.getEmail());
+        CustomerDTO existingCustomer = customerService.findCustomerByEmail(customerDTORequest.getEmail());
         if (existingCustomer != null) {
             return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-        Customer customerRequest = mapCustomerDTOToCustomer(customerDTORequest);
+        Customer customerRequest = customerMapper.toCustomer(customerDTORequest);
         customerRequest.setCreationDate(LocalDate.now());
         Customer customerResponse = customerService.saveCustomer(customerRequest);
         if (customerResponse != null) {
-            CustomerDTO customerDTO = mapCustomerToCustomerDTO(customerResponse);
+            CustomerDTO customerDTO = customerMapper.toCustomerDTO(customerResponse);
             return new ResponseEntity<>(customerDTO, HttpStatus.CREATED);
         }
         return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
@@ -78,10 +79,10 @@ public class CustomerRestController {
         if (!customerService.checkIfIdExists(customerDTORequest.getId())) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        Customer customerRequest = mapCustomerDTOToCustomer(customerDTORequest);
+        Customer customerRequest = customerMapper.toCustomer(customerDTORequest);
         Customer customerResponse = customerService.updateCustomer(customerRequest);
         if (customerResponse != null) {
-            CustomerDTO customerDTO = mapCustomerToCustomerDTO(customerResponse);
+            CustomerDTO customerDTO = customerMapper.toCustomerDTO(customerResponse);
             return new ResponseEntity<>(customerDTO, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
@@ -115,15 +116,44 @@ public class CustomerRestController {
     public ResponseEntity<List<CustomerDTO>> searchCustomers(@RequestParam("beginPage") int beginPage,
                                                              @RequestParam("endPage") int endPage) {
         //, UriComponentsBuilder uriComponentBuilder
-        Page<Customer> customers = customerService.getPaginatedCustomersList(beginPage, endPage);
+        Page<CustomerDTO> customers = customerService.getPaginatedCustomersList(beginPage, endPage);
         if (customers != null) {
-            List<CustomerDTO> customerDTOs = customers.stream().map(this::mapCustomerToCustomerDTO)
-                    .collect(Collectors.toList());
-            return new ResponseEntity<>(customerDTOs, HttpStatus.OK);
+            return new ResponseEntity<>(customers.getContent(), HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Returns the customers ordered by id, one page at a time: the nextCursor of a page gives the following one.
+     * Unlike paginatedSearch, no total count is computed and a deep page costs the same as the first one.
+     * @param cursor
+     * @param size
+     * @return
+     */
+    @GetMapping("/customers")
+    @ApiOperation(value="List customers of the Library ordered by id, one page at a time", response = SliceDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ok: successfully listed"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 400, message = "Bad Request: malformed cursor"),
+    })
+    public ResponseEntity<SliceDTO<CustomerDTO>> listCustomers(@RequestParam(value = "cursor", required = false) String cursor,
+                                                               @RequestParam(value = "size", defaultValue = "20") int size) {
+        Integer lastId;
+        try {
+            lastId = KeysetCursor.decodeId(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Slice<CustomerDTO> customers = customerService.getCustomers(lastId, size);
+        if (!customers.hasContent()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        SliceDTO<CustomerDTO> slice = SliceDTO.of(customers, Function.identity(),
+                customer -> KeysetCursor.encode(customer.getId()));
+        return new ResponseEntity<>(slice, HttpStatus.OK);
+    }
+
     /**
      * Returns the customer having the email address passed in parameter.
      * @param email
@@ -137,9 +167,8 @@ public class CustomerRestController {
     })
     public ResponseEntity<CustomerDTO> searchCustomerByEmail(@RequestParam("email") String email) {
         //, UriComponentsBuilder uriComponentBuilder
-        Customer customer = customerService.findCustomerByEmail(email);
-        if (customer != null) {
-            CustomerDTO customerDTO = mapCustomerToCustomerDTO(customer);
+        CustomerDTO customerDTO = customerService.findCustomerByEmail(email);
+        if (customerDTO != null) {
             return new ResponseEntity<>(customerDTO, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -151,17 +180,15 @@ public class CustomerRestController {
      * @return
      */
     @GetMapping("/searchByLastName")
-    @ApiOperation(value="Search a customer in the Library by its Last name", response = List.class)
+    @ApiOperation(value="Search a customer in the Library by its Last name, ignoring case and accents", response = List.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Ok: successfull research"),
             @ApiResponse(code = 204, message = "No Content: no result founded"),
     })
     public ResponseEntity<List<CustomerDTO>> searchBookByLastName(@RequestParam("lastName") String lastName) {
         //,	UriComponentsBuilder uriComponentBuilder
-        List<Customer> customers = customerService.findCustomerByLastName(lastName);
-        if (customers != null && !CollectionUtils.isEmpty(customers)) {
-            List<CustomerDTO> customerDTOs = customers.stream().map(this::mapCustomerToCustomerDTO)
-                    .collect(Collectors.toList());
+        List<CustomerDTO> customerDTOs = customerService.findCustomerByLastName(lastName);
+        if (customerDTOs != null && !CollectionUtils.isEmpty(customerDTOs)) {
             return new ResponseEntity<>(customerDTOs, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -170,6 +197,7 @@ public class CustomerRestController {
     /**
      * Email a customer. The MailDTO object contains the identifier and the email of the customer concerned,
      * the subject of the email and the content of the message.
+     * The email is stored in the mail outbox and sent in the background by the MailDispatcher.
      * @param loanMailDto
      * @param uriComponentBuilder
      * @return
@@ -177,13 +205,12 @@ public class CustomerRestController {
     @PutMapping("/sendEmailToCustomer")
     @ApiOperation(value="Send an email to customer of the Library", response = String.class)
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Ok: Email successfully sent"),
-            @ApiResponse(code = 404, message = "Not Found: no customer found, or wrong email"),
-            @ApiResponse(code = 403, message = "Forbidden: Email cannot be sent")
+            @ApiResponse(code = 202, message = "Accepted: Email queued, it will be sent in the background"),
+            @ApiResponse(code = 404, message = "Not Found: no customer found, or wrong email")
     })
     public ResponseEntity<Boolean> sendMailToCustomer(@RequestBody MailDTO loanMailDto, UriComponentsBuilder uriComponentBuilder) {
 
-        Customer customer = customerService.findCustomerById(loanMailDto.getCustomerId());
+        CustomerDTO customer = customerService.findCustomerById(loanMailDto.getCustomerId());
         if (customer == null) {
             String errorMessage = "The selected Customer for sending email is not found in the database";
             LOGGER.info(errorMessage);
@@ -194,42 +221,10 @@ public class CustomerRestController {
             return new ResponseEntity<>(false, HttpStatus.NOT_FOUND);
         }
 
-        SimpleMailMessage mail = new SimpleMailMessage();
-        mail.setFrom(MailDTO.MAIL_FROM);
-        mail.setTo(customer.getEmail());
-        mail.setSentDate(new Date());
-        mail.setSubject(loanMailDto.getEmailSubject());
-        mail.setText(loanMailDto.getEmailContent());
-
-        try {
-            javaMailSender.send(mail);
-        } catch (MailException e) {
-            return new ResponseEntity<>(false, HttpStatus.FORBIDDEN);
-        }
-
-        return new ResponseEntity<>(true, HttpStatus.OK);
-    }
-
-    /**
-     * Transform an entity Customer to a POJO CustomerDTO
-     *
-     * @param customer
-     * @return
-     */
-    private CustomerDTO mapCustomerToCustomerDTO(Customer customer) {
-        ModelMapper mapper = new ModelMapper();
-        return mapper.map(customer, CustomerDTO.class);
-    }
-
-    /**
-     * Transform a POJO CustomerDTO to an entity Customer
-     *
-     * @param customerDTO
-     * @return
-     */
-    private Customer mapCustomerDTOToCustomer(CustomerDTO customerDTO) {
-        ModelMapper mapper = new ModelMapper();
-        return mapper.map(customerDTO, Customer.class);
+        // the mail is sent by the MailDispatcher, out of the request thread
+        mailOutboxService.enqueue(MailDTO.MAIL_FROM, customer.getEmail(), loanMailDto.getEmailSubject(),
+                loanMailDto.getEmailContent());
+        return new ResponseEntity<>(true, HttpStatus.ACCEPTED);
     }
 
 }
@@ -1,14 +1,22 @@
 package com.bsaoudi.library.customer;
 
+import com.bsaoudi.library.common.KeysetCursor;
+import com.bsaoudi.library.common.TextNormalizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * The searches run in read-only transactions, without snapshots of the loaded customers nor flushes, and return
+ * DTOs mapped inside the transaction, open-session-in-view being disabled.
+ */
 @Service("customerService")
 @Transactional
 @RequiredArgsConstructor
@@ -16,6 +24,8 @@ public class CustomerServiceImpl implements ICustomerService {
 
     private final ICustomerDao customerDao;
 
+    private final CustomerMapper customerMapper;
+
     @Override
     public Customer saveCustomer(Customer customer) {
         return customerDao.save(customer);
@@ -32,28 +42,49 @@ public class CustomerServiceImpl implements ICustomerService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean checkIfIdExists(Integer id) {
         return customerDao.existsById(id);
     }
 
     @Override
-    public Customer findCustomerByEmail(String email) {
-        return customerDao.findCustomerByEmailIgnoreCase(email);
+    @Transactional(readOnly = true)
+    public CustomerDTO findCustomerByEmail(String email) {
+        Customer customer = customerDao.findCustomerByEmailKey(Customer.emailKey(email));
+        return customer == null ? null : customerMapper.toCustomerDTO(customer);
     }
 
-    public Customer findCustomerById(Integer customerId) {
-        return customerDao.getOne(customerId);
+    /**
+     * @return the customer, null if it does not exist
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerDTO findCustomerById(Integer customerId) {
+        return customerDao.findById(customerId).map(customerMapper::toCustomerDTO).orElse(null);
     }
 
     @Override
-    public Page<Customer> getPaginatedCustomersList(int begin, int end){
+    @Transactional(readOnly = true)
+    public Page<CustomerDTO> getPaginatedCustomersList(int begin, int end){
         Pageable page = PageRequest.of(begin, end);
-        return customerDao.findAll(page);
+        return customerDao.findAll(page).map(customerMapper::toCustomerDTO);
+    }
+
+    /**
+     * Returns the customers following the last id of the previous page, without counting all the customers.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CustomerDTO> getCustomers(Integer lastId, int size) {
+        return customerDao.findByIdGreaterThanOrderByIdAsc(lastId == null ? Integer.MIN_VALUE : lastId, KeysetCursor.limit(size))
+                .map(customerMapper::toCustomerDTO);
     }
 
     @Override
-    public List<Customer> findCustomerByLastName(String lastName){
-        return customerDao.findCustomerByLastNameIgnoreCase(lastName);
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> findCustomerByLastName(String lastName){
+        return customerDao.findCustomerByLastNameKey(TextNormalizer.normalize(lastName)).stream()
+                .map(customerMapper::toCustomerDTO).collect(Collectors.toList());
     }
 
 }
@@ -1,5 +1,7 @@
 package com.bsaoudi.library.customer;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,7 +10,9 @@ import java.util.List;
 @Repository
 public interface ICustomerDao extends JpaRepository<Customer, Integer> {
 
-    public Customer findCustomerByEmailIgnoreCase(String email);
+    public Customer findCustomerByEmailKey(String emailKey);
 
-    public List<Customer> findCustomerByLastNameIgnoreCase(String lastName);
+    public List<Customer> findCustomerByLastNameKey(String lastNameKey);
+
+    public Slice<Customer> findByIdGreaterThanOrderByIdAsc(Integer lastId, Pageable pageable);
 }
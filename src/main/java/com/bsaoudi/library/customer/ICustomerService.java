@@ -3,6 +3,7 @@ package com.bsaoudi.library.customer;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface ICustomerService {
 
@@ -14,12 +15,14 @@ public interface ICustomerService {
 
     public boolean checkIfIdExists(Integer id);
 
-    public Customer findCustomerByEmail(String email);
+    public CustomerDTO findCustomerByEmail(String email);
 
-    public List<Customer> findCustomerByLastName(String lastName);
+    public List<CustomerDTO> findCustomerByLastName(String lastName);
 
-    public Customer findCustomerById(Integer customerId);
+    public CustomerDTO findCustomerById(Integer customerId);
 
-    public Page<Customer> getPaginatedCustomersList(int begin, int end);
+    public Page<CustomerDTO> getPaginatedCustomersList(int begin, int end);
+
+    public Slice<CustomerDTO> getCustomers(Integer lastId, int size);
 
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.bsaoudi.library.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Gives the connections of the read-only transactions from a replica, the other ones from the primary. A read-only
+ * transaction goes to the primary too while all the replicas lag.
+ * <p>
+ * The transaction must be known when the connection is taken, so this data source is used behind a
+ * LazyConnectionDataSourceProxy: the transaction managers take their connection when the transaction begins, before
+ * its read-only flag is exposed, and the proxy only takes the real one at the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaSet replicaSet;
+
+    public ReadWriteRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+        setTargetDataSources(replicaSet.getDataSources());
+        setDefaultTargetDataSource(replicaSet.getPrimary());
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            String replica = replicaSet.nextReplica();
+            if (replica != null) {
+                return replica;
+            }
+        }
+        return ReplicaSet.PRIMARY;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bsaoudi.library.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends the read-only transactions (the searches of the services) to the replicas listed in
+ * library.datasource.replicas, and the other ones to the primary of spring.datasource.url. The checkouts, returns
+ * and all the writes stay on the primary.
+ * <p>
+ * The read-only sessions do not put what they load in the second-level cache: a lagging replica would store there
+ * a state older than the one committed on the primary.
+ * <p>
+ * Locally, two H2 servers in cluster mode are kept in sync: the application writes through the cluster URL
+ * (jdbc:h2:tcp://host1,host2/path) and reads from the second server (jdbc:h2:tcp://host2/path;CLUSTER=TRUE).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "library.datasource", name = "replicas[0].url")
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties dataSourceProperties, ReplicaProperties replicaProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaSet.PRIMARY);
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaProperties.Replica> replicaList = replicaProperties.getReplicas();
+        for (int i = 0; i < replicaList.size(); i++) {
+            ReplicaProperties.Replica replica = replicaList.get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create(dataSourceProperties.getClassLoader())
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setReadOnly(true);
+            replicas.put(dataSource.getPoolName(), dataSource);
+        }
+        return new ReplicaSet(primary, replicas, replicaProperties.getMaxLag());
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicaSet);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                super.doBegin(transaction, definition);
+                if (definition.isReadOnly()) {
+                    EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager
+                            .getResource(obtainEntityManagerFactory());
+                    holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+                }
+            }
+        };
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bsaoudi.library.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * The primary database and its replicas. A heartbeat, the current time, is written regularly on the primary and
+ * read back on each replica: the age of the heartbeat a replica returns is its replication lag. A replica receives
+ * transactions only while its lag is under the maximum, and not before its first heartbeat is read. The lag of each
+ * replica is published as the library.datasource.replica.lag gauge.
+ */
+public class ReplicaSet implements SmartInitializingSingleton, DisposableBean, MeterBinder {
+
+    static final String PRIMARY = "primary";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final HikariDataSource primary;
+
+    private final Map<String, HikariDataSource> replicas;
+
+    private final long maxLagMillis;
+
+    private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+
+    private volatile List<String> availableReplicas = Collections.emptyList();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary
+     * @param replicas by name, in the order of the configuration
+     * @param maxLag
+     */
+    public ReplicaSet(HikariDataSource primary, Map<String, HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    /**
+     * Checks the replicas a first time so that they are used from the start. The heartbeat table is created with the
+     * schema (Flyway migration or data/replication-heartbeat.sql), once all the singletons are instantiated.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        heartbeat();
+    }
+
+    DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return the primary and the replicas, by name
+     */
+    Map<Object, Object> getDataSources() {
+        Map<Object, Object> dataSources = new HashMap<>(replicas);
+        dataSources.put(PRIMARY, primary);
+        return dataSources;
+    }
+
+    /**
+     * @return the name of the next replica in turn among the ones not lagging, null if they all are
+     */
+    String nextReplica() {
+        List<String> available = availableReplicas;
+        if (available.isEmpty()) {
+            return null;
+        }
+        return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${library.datasource.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        beat();
+        checkReplicas();
+    }
+
+    /**
+     * Writes the current time on the primary.
+     */
+    void beat() {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(primary);
+            long now = System.currentTimeMillis();
+            if (jdbcTemplate.update("UPDATE REPLICATION_HEARTBEAT SET BEAT = ? WHERE ID = 1", now) == 0) {
+                jdbcTemplate.update("INSERT INTO REPLICATION_HEARTBEAT (ID, BEAT) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            LOGGER.warn("Heartbeat not written on the primary: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the heartbeat on each replica and keeps the ones whose lag is under the maximum. An unreachable replica
+     * is left aside too.
+     */
+    void checkReplicas() {
+        List<String> available = new ArrayList<>(replicas.size());
+        replicas.forEach((name, replica) -> {
+            long lag;
+            try {
+                Long beat = new JdbcTemplate(replica).queryForObject("SELECT BEAT FROM REPLICATION_HEARTBEAT WHERE ID = 1",
+                        Long.class);
+                lag = Math.max(0, System.currentTimeMillis() - beat);
+            } catch (DataAccessException e) {
+                LOGGER.debug("Heartbeat not read on {}: {}", name, e.getMessage());
+                lag = -1;
+            }
+            Long previousLag = lagMillis.put(name, lag);
+            boolean wasAvailable = availableReplicas.contains(name);
+            if (lag >= 0 && lag <= maxLagMillis) {
+                available.add(name);
+                if (!wasAvailable) {
+                    LOGGER.info("Replica {} receives the read-only transactions, lag {} ms", name, lag);
+                }
+            } else if (wasAvailable || previousLag == null) {
+                LOGGER.warn("Replica {} left aside, {}", name, lag < 0 ? "unreachable" : "lag " + lag + " ms");
+            }
+        });
+        availableReplicas = Collections.unmodifiableList(available);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String name : replicas.keySet()) {
+            Gauge.builder("library.datasource.replica.lag", lagMillis, lags -> {
+                Long lag = lags.get(name);
+                return lag == null || lag < 0 ? Double.NaN : lag / 1000.0;
+            }).description("Replication lag of the replica, NaN while it is unreachable")
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
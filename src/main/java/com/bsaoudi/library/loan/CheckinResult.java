@@ -0,0 +1,7 @@
+package com.bsaoudi.library.loan;
+
+public enum CheckinResult {
+
+    RETURNED,
+    NOT_BORROWED
+}
@@ -0,0 +1,9 @@
+package com.bsaoudi.library.loan;
+
+public enum CheckoutResult {
+
+    CHECKED_OUT,
+    ALREADY_BORROWED,
+    NO_EXAMPLARY_AVAILABLE,
+    NOT_FOUND
+}
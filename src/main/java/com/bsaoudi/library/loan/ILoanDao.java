@@ -1,21 +1,113 @@
 package com.bsaoudi.library.loan;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ILoanDao extends JpaRepository<Loan, Integer> {
 
+    public static final String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Projection of the loans on LoanDTO: the loan, its book and its customer are read by one SQL join.
+     */
+    public static final String SELECT_LOAN_DTO = "SELECT new com.bsaoudi.library.loan.LoanDTO(b.id, b.isbn, b.title,"
+            + " c.id, c.firstName, c.lastName, c.email, lo.pk.creationDateTime, lo.beginDate, lo.endDate)"
+            + " FROM Loan lo INNER JOIN lo.pk.book b INNER JOIN lo.pk.customer c";
+
+    public static final String ORDER_BY_BEGIN_DATE = " ORDER BY lo.beginDate DESC, lo.pk.creationDateTime, b.id, c.id";
+
+    public static final String ORDER_BY_END_DATE_KEY = " ORDER BY lo.endDate, lo.pk.creationDateTime, lo.pk.book.id,"
+            + " lo.pk.customer.id";
+
+    /**
+     * Seek after the last loan of a page by end date. The first condition, redundant, bounds the range scan of the
+     * index on END_DATE.
+     */
+    public static final String AFTER_END_DATE_KEY = " AND lo.endDate >= :lastEndDate AND (lo.endDate > :lastEndDate"
+            + " OR (lo.endDate = :lastEndDate AND (lo.pk.creationDateTime > :lastCreationDateTime"
+            + " OR (lo.pk.creationDateTime = :lastCreationDateTime AND (lo.pk.book.id > :lastBookId"
+            + " OR (lo.pk.book.id = :lastBookId AND lo.pk.customer.id > :lastCustomerId))))))";
+
+    /**
+     * The order of IDX_LOAN_CUSTOMER_STATUS_KEY: the status, the same for all the loans of the pages, is sorted on
+     * too so that the index still serves the order.
+     */
+    public static final String ORDER_BY_CUSTOMER_KEY = " ORDER BY lo.pk.customer.id, lo.status,"
+            + " lo.pk.creationDateTime, lo.pk.book.id";
+
+    /**
+     * Seek after the last loan of a page of a customer, the first condition bounding the range scan of the index on
+     * CUSTOMER_ID.
+     */
+    public static final String AFTER_CUSTOMER_KEY = " AND lo.pk.customer.id >= :lastCustomerId"
+            + " AND (lo.pk.customer.id > :lastCustomerId OR (lo.pk.customer.id = :lastCustomerId"
+            + " AND (lo.pk.creationDateTime > :lastCreationDateTime OR (lo.pk.creationDateTime = :lastCreationDateTime AND lo.pk.book.id > :lastBookId))))";
+
     public List<Loan> findByEndDateBefore(LocalDate maxEndDate);
 
-    @Query("SELECT lo FROM Loan lo INNER JOIN lo.pk.customer c WHERE UPPER(c.email) = UPPER(?1) AND lo.status = ?2 ")
-    public List<Loan> getAllOpenLoansOfThisCustomer(String email, LoanStatus status);
+    @Query("SELECT lo FROM Loan lo INNER JOIN lo.pk.customer c WHERE c.emailKey = ?1 AND lo.status = ?2 ")
+    public List<Loan> getAllOpenLoansOfThisCustomer(String emailKey, LoanStatus status);
 
     @Query("SELECT lo FROM Loan lo INNER JOIN lo.pk.book b INNER JOIN lo.pk.customer c WHERE b.id = ?1 AND c.id = ?2 AND lo.status = ?3 ")
     public Loan getLoanByCriteria(Integer bookId, Integer customerId, LoanStatus status);
-}
 
+    // LoanDTO projections, the most recently begun loans first
+
+    @Query(SELECT_LOAN_DTO + " WHERE lo.endDate < ?1" + ORDER_BY_BEGIN_DATE)
+    public List<LoanDTO> findLoanDTOsByEndDateBefore(LocalDate maxEndDate);
+
+    @Query(SELECT_LOAN_DTO + " WHERE c.emailKey = ?1 AND lo.status = ?2" + ORDER_BY_BEGIN_DATE)
+    public List<LoanDTO> getAllOpenLoanDTOsOfThisCustomer(String emailKey, LoanStatus status);
+
+    @Query(SELECT_LOAN_DTO + " WHERE b.id IN ?1 AND c.id IN ?2 AND lo.status = ?3")
+    public List<LoanDTO> findLoanDTOsOfBooksAndCustomers(Collection<Integer> bookIds, Collection<Integer> customerIds,
+                                                         LoanStatus status);
+
+    @Query(SELECT_LOAN_DTO + " WHERE lo.status = ?1")
+    public List<LoanDTO> findLoanDTOsByStatus(LoanStatus status);
+
+    /**
+     * Reads the loans ending before the date through a database cursor. The stream must be consumed and closed
+     * inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_LOAN_DTO + " WHERE lo.endDate < ?1" + ORDER_BY_BEGIN_DATE)
+    public Stream<LoanDTO> streamLoanDTOsByEndDateBefore(LocalDate maxEndDate);
+
+    // keyset pagination: the pages by end date are read in the order of the IDX_LOAN_END_DATE_KEY index (end date,
+    // creation date time, book id, customer id), the pages of a customer in the order of the
+    // IDX_LOAN_CUSTOMER_STATUS_KEY index (customer id, status, creation date time, book id), so that a page is read
+    // from the index without sorting the previous ones
+
+    @Query(SELECT_LOAN_DTO + " WHERE lo.endDate < :maxEndDate" + ORDER_BY_END_DATE_KEY)
+    public Slice<LoanDTO> findByEndDateBeforeOrderByKey(LocalDate maxEndDate, Pageable pageable);
+
+    @Query(SELECT_LOAN_DTO + " WHERE lo.endDate < :maxEndDate" + AFTER_END_DATE_KEY + ORDER_BY_END_DATE_KEY)
+    public Slice<LoanDTO> findByEndDateBeforeAfterKey(LocalDate maxEndDate, LocalDate lastEndDate,
+                                                      LocalDateTime lastCreationDateTime, Integer lastBookId,
+                                                      Integer lastCustomerId, Pageable pageable);
+
+    @Query(SELECT_LOAN_DTO + " WHERE c.emailKey = :emailKey AND lo.status = :status" + ORDER_BY_CUSTOMER_KEY)
+    public Slice<LoanDTO> getOpenLoansOfThisCustomerOrderByKey(String emailKey, LoanStatus status, Pageable pageable);
+
+    @Query(SELECT_LOAN_DTO + " WHERE c.emailKey = :emailKey AND lo.status = :status" + AFTER_CUSTOMER_KEY
+            + ORDER_BY_CUSTOMER_KEY)
+    public Slice<LoanDTO> getOpenLoansOfThisCustomerAfterKey(String emailKey, LoanStatus status,
+                                                             LocalDateTime lastCreationDateTime, Integer lastBookId,
+                                                             Integer lastCustomerId, Pageable pageable);
+}
@@ -2,6 +2,9 @@ package com.bsaoudi.library.loan;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Slice;
 
 public interface ILoanService {
 
@@ -9,6 +12,18 @@ public interface ILoanService {
 
     public List<Loan> getAllOpenLoansOfThisCustomer(String email, LoanStatus status);
 
+    public List<LoanDTO> findAllLoanDTOsByEndDateBefore(LocalDate maxEndDate);
+
+    public List<LoanDTO> getAllOpenLoanDTOsOfThisCustomer(String email, LoanStatus status);
+
+    public List<LoanDTO> getOverdueLoans();
+
+    public void streamLoansByEndDateBefore(LocalDate maxEndDate, Consumer<LoanDTO> consumer);
+
+    public Slice<LoanDTO> findLoansByEndDateBefore(LocalDate maxEndDate, LoanCursor cursor, int size);
+
+    public Slice<LoanDTO> getOpenLoansOfThisCustomer(String email, LoanStatus status, LoanCursor cursor, int size);
+
     public Loan getOpenedLoan(SimpleLoanDTO simpleLoanDTO);
 
     public boolean checkIfLoanExists(SimpleLoanDTO simpleLoanDTO);
@@ -16,4 +31,10 @@ public interface ILoanService {
     public Loan saveLoan(Loan loan);
 
     public void closeLoan(Loan loan);
+
+    public List<LoanBatchDao.ItemCheck> checkLoans(List<SimpleLoanDTO> items);
+
+    public void saveOpenLoans(List<SimpleLoanDTO> loans);
+
+    public boolean[] closeOpenLoans(List<SimpleLoanDTO> loans);
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import java.io.Serializable;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "LOAN")
+@Table(name = "LOAN", indexes = {
+        @Index(name = "IDX_LOAN_END_DATE_KEY", columnList = "END_DATE, CREATION_DATE_TIME, BOOK_ID, CUSTOMER_ID"),
+        @Index(name = "IDX_LOAN_CUSTOMER_STATUS_KEY", columnList = "CUSTOMER_ID, STATUS, CREATION_DATE_TIME, BOOK_ID")})
 @AssociationOverride(name = "pk.book", joinColumns = @JoinColumn(name = "BOOK_ID"))
 @AssociationOverride(name = "pk.customer", joinColumns = @JoinColumn(name = "CUSTOMER_ID"))
 public class Loan implements Serializable {
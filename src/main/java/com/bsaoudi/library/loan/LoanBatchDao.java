@@ -0,0 +1,123 @@
+package com.bsaoudi.library.loan;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC access for the loans registered several at a time: all the items are checked by a single query, then
+ * written by JDBC batches, instead of one query and one statement per loan.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LoanBatchDao {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Checks in one query the book, the customer and the open loan of each item.
+     *
+     * @param items
+     * @return the checks, in the order of the items
+     */
+    public List<ItemCheck> check(List<SimpleLoanDTO> items) {
+        StringBuilder values = new StringBuilder();
+        Object[] args = new Object[items.size() * 3];
+        for (int i = 0; i < items.size(); i++) {
+            values.append(i == 0 ? "" : ", ").append("(CAST(? AS INT), CAST(? AS INT), CAST(? AS INT))");
+            args[3 * i] = i;
+            args[3 * i + 1] = items.get(i).getBookId();
+            args[3 * i + 2] = items.get(i).getCustomerId();
+        }
+        String sql = "SELECT b.AVAILABLE_EXAMPLARIES, c.CUSTOMER_ID, (SELECT COUNT(*) FROM LOAN lo"
+                + " WHERE lo.BOOK_ID = i.BOOK_ID AND lo.CUSTOMER_ID = i.CUSTOMER_ID AND lo.STATUS = 'OPEN')"
+                + " FROM (VALUES " + values + ") i(ITEM, BOOK_ID, CUSTOMER_ID)"
+                + " LEFT JOIN BOOK b ON b.BOOK_ID = i.BOOK_ID"
+                + " LEFT JOIN CUSTOMER c ON c.CUSTOMER_ID = i.CUSTOMER_ID"
+                + " ORDER BY i.ITEM";
+        return jdbcTemplate.query(sql, (rs, row) -> new ItemCheck(rs.getObject(1) != null, rs.getInt(1),
+                rs.getObject(2) != null, rs.getInt(3) > 0), args);
+    }
+
+    /**
+     * Inserts open loans, all created at the same time.
+     *
+     * @param loans
+     * @param creationDateTime
+     */
+    public void insertOpenLoans(List<SimpleLoanDTO> loans, LocalDateTime creationDateTime) {
+        List<Object[]> args = new ArrayList<>(loans.size());
+        for (SimpleLoanDTO loan : loans) {
+            args.add(new Object[] {loan.getBookId(), loan.getCustomerId(), Timestamp.valueOf(creationDateTime),
+                    Date.valueOf(loan.getBeginDate()), Date.valueOf(loan.getEndDate())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO LOAN (BOOK_ID, CUSTOMER_ID, CREATION_DATE_TIME, BEGIN_DATE, END_DATE, STATUS)"
+                + " VALUES (?, ?, ?, ?, ?, 'OPEN')", args);
+    }
+
+    /**
+     * Closes the open loan of the book by the customer, for each item.
+     *
+     * @param loans
+     * @return for each item, true if an open loan has been closed
+     */
+    public boolean[] closeOpenLoans(List<SimpleLoanDTO> loans) {
+        List<Object[]> args = new ArrayList<>(loans.size());
+        loans.forEach(loan -> args.add(new Object[] {loan.getBookId(), loan.getCustomerId()}));
+        int[] counts = jdbcTemplate.batchUpdate("UPDATE LOAN SET STATUS = 'CLOSE'"
+                + " WHERE BOOK_ID = ? AND CUSTOMER_ID = ? AND STATUS = 'OPEN'", args);
+        boolean[] closed = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            closed[i] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+        }
+        return closed;
+    }
+
+    /**
+     * State of the database for one item of a batch.
+     */
+    public static final class ItemCheck {
+
+        private final boolean bookFound;
+
+        private final int availableExamplaries;
+
+        private final boolean customerFound;
+
+        private final boolean openLoan;
+
+        private ItemCheck(boolean bookFound, int availableExamplaries, boolean customerFound, boolean openLoan) {
+            this.bookFound = bookFound;
+            this.availableExamplaries = availableExamplaries;
+            this.customerFound = customerFound;
+            this.openLoan = openLoan;
+        }
+
+        public boolean isBookFound() {
+            return bookFound;
+        }
+
+        public int getAvailableExamplaries() {
+            return availableExamplaries;
+        }
+
+        public boolean isCustomerFound() {
+            return customerFound;
+        }
+
+        /**
+         * @return true if the customer has an open loan of the book
+         */
+        public boolean isOpenLoan() {
+            return openLoan;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bsaoudi.library.loan;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel(value = "Loan Batch Item Model")
+public class LoanBatchItemDTO {
+
+    @ApiModelProperty(value = "Book id concerned by the loan")
+    private final Integer bookId;
+
+    @ApiModelProperty(value = "Customer id concerned by the loan")
+    private final Integer customerId;
+
+    @ApiModelProperty(value = "Outcome for this loan: a CheckoutResult for the checkouts, a CheckinResult for the returns")
+    private final String status;
+
+    public LoanBatchItemDTO(Integer bookId, Integer customerId, String status) {
+        this.bookId = bookId;
+        this.customerId = customerId;
+        this.status = status;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.bsaoudi.library.loan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bsaoudi.library.book.BookServiceImpl;
+import com.bsaoudi.library.common.StripedLocks;
+import com.bsaoudi.library.customer.CustomerServiceImpl;
+
+/**
+ * Checkouts and returns of books. For a given book they are serialized by a striped lock held until the transaction
+ * is committed, so the check for an already open loan and the creation of the loan cannot interleave; the copy
+ * itself is reserved by a conditional update of the available examplaries, which never lends more copies than the
+ * library owns, whatever the number of application instances.
+ */
+@Service("loanCheckoutService")
+public class LoanCheckoutService {
+
+    public static final int LOCK_STRIPES = 256;
+
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private final LoanServiceImpl loanService;
+
+    private final BookServiceImpl bookService;
+
+    private final CustomerServiceImpl customerService;
+
+    private final LoanMapper loanMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final StripedLocks bookLocks = new StripedLocks(LOCK_STRIPES);
+
+    public LoanCheckoutService(LoanServiceImpl loanService, BookServiceImpl bookService, CustomerServiceImpl customerService,
+                               LoanMapper loanMapper, PlatformTransactionManager transactionManager) {
+        this.loanService = loanService;
+        this.bookService = bookService;
+        this.customerService = customerService;
+        this.loanMapper = loanMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Lends an examplary of the book to the customer.
+     *
+     * @param simpleLoanDTO
+     * @return
+     */
+    public CheckoutResult checkout(SimpleLoanDTO simpleLoanDTO) {
+        Lock lock = bookLocks.get(simpleLoanDTO.getBookId());
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> {
+                if (loanService.checkIfLoanExists(simpleLoanDTO)) {
+                    return CheckoutResult.ALREADY_BORROWED;
+                }
+                if (!bookService.reserveExamplary(simpleLoanDTO.getBookId())) {
+                    return bookService.checkIfIdExists(simpleLoanDTO.getBookId()) ? CheckoutResult.NO_EXAMPLARY_AVAILABLE
+                            : CheckoutResult.NOT_FOUND;
+                }
+                if (!customerService.checkIfIdExists(simpleLoanDTO.getCustomerId())) {
+                    // gives the reserved examplary back
+                    status.setRollbackOnly();
+                    return CheckoutResult.NOT_FOUND;
+                }
+                loanService.saveLoan(loanMapper.toLoan(simpleLoanDTO));
+                return CheckoutResult.CHECKED_OUT;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the open loan of the book by the customer, and makes the examplary available again.
+     *
+     * @param simpleLoanDTO
+     * @return false if there is no such open loan
+     */
+    public boolean checkin(SimpleLoanDTO simpleLoanDTO) {
+        Lock lock = bookLocks.get(simpleLoanDTO.getBookId());
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> {
+                Loan loan = loanService.getOpenedLoan(simpleLoanDTO);
+                if (loan == null) {
+                    return false;
+                }
+                loan.setStatus(LoanStatus.CLOSE);
+                loanService.closeLoan(loan);
+                bookService.releaseExamplary(simpleLoanDTO.getBookId());
+                return true;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lends several books in one transaction, e.g. the stack of books a customer brings to the desk. All the items
+     * are checked by one query and the copies reserved and the loans inserted by JDBC batches; each item gets the
+     * result a single checkout would have given.
+     *
+     * @param items
+     * @return the results, in the order of the items
+     */
+    public List<CheckoutResult> checkoutAll(List<SimpleLoanDTO> items) {
+        List<Lock> locks = lockBooks(items);
+        try {
+            return transactionTemplate.execute(status -> {
+                List<LoanBatchDao.ItemCheck> checks = loanService.checkLoans(items);
+                CheckoutResult[] results = new CheckoutResult[items.size()];
+                Map<Integer, Integer> availableByBook = new HashMap<>();
+                Map<Integer, Integer> examplariesByBook = new LinkedHashMap<>();
+                Set<List<Integer>> borrowed = new HashSet<>();
+                for (int i = 0; i < items.size(); i++) {
+                    SimpleLoanDTO item = items.get(i);
+                    LoanBatchDao.ItemCheck check = checks.get(i);
+                    if (!check.isBookFound() || !check.isCustomerFound()) {
+                        results[i] = CheckoutResult.NOT_FOUND;
+                    } else if (check.isOpenLoan() || !borrowed.add(Arrays.asList(item.getBookId(), item.getCustomerId()))) {
+                        results[i] = CheckoutResult.ALREADY_BORROWED;
+                    } else {
+                        int available = availableByBook.computeIfAbsent(item.getBookId(), bookId -> check.getAvailableExamplaries());
+                        if (available == 0) {
+                            results[i] = CheckoutResult.NO_EXAMPLARY_AVAILABLE;
+                        } else {
+                            availableByBook.put(item.getBookId(), available - 1);
+                            examplariesByBook.merge(item.getBookId(), 1, Integer::sum);
+                            results[i] = CheckoutResult.CHECKED_OUT;
+                        }
+                    }
+                }
+                // another instance may have taken the copies since the check
+                Set<Integer> refused = examplariesByBook.isEmpty() ? new HashSet<>() : bookService.reserveExamplaries(examplariesByBook);
+                List<SimpleLoanDTO> checkedOut = new ArrayList<>();
+                for (int i = 0; i < items.size(); i++) {
+                    if (results[i] == CheckoutResult.CHECKED_OUT) {
+                        if (refused.contains(items.get(i).getBookId())) {
+                            results[i] = CheckoutResult.NO_EXAMPLARY_AVAILABLE;
+                        } else {
+                            checkedOut.add(items.get(i));
+                        }
+                    }
+                }
+                loanService.saveOpenLoans(checkedOut);
+                return Arrays.asList(results);
+            });
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Closes several open loans in one transaction, and makes their examplaries available again.
+     *
+     * @param items
+     * @return the results, in the order of the items
+     */
+    public List<CheckinResult> checkinAll(List<SimpleLoanDTO> items) {
+        List<Lock> locks = lockBooks(items);
+        try {
+            return transactionTemplate.execute(status -> {
+                List<LoanBatchDao.ItemCheck> checks = loanService.checkLoans(items);
+                CheckinResult[] results = new CheckinResult[items.size()];
+                List<Integer> returnedItems = new ArrayList<>();
+                Set<List<Integer>> returned = new HashSet<>();
+                for (int i = 0; i < items.size(); i++) {
+                    SimpleLoanDTO item = items.get(i);
+                    if (checks.get(i).isOpenLoan() && returned.add(Arrays.asList(item.getBookId(), item.getCustomerId()))) {
+                        returnedItems.add(i);
+                    } else {
+                        results[i] = CheckinResult.NOT_BORROWED;
+                    }
+                }
+                boolean[] closed = loanService.closeOpenLoans(returnedItems.stream().map(items::get).collect(Collectors.toList()));
+                Map<Integer, Integer> examplariesByBook = new LinkedHashMap<>();
+                for (int j = 0; j < closed.length; j++) {
+                    int i = returnedItems.get(j);
+                    results[i] = closed[j] ? CheckinResult.RETURNED : CheckinResult.NOT_BORROWED;
+                    if (closed[j]) {
+                        examplariesByBook.merge(items.get(i).getBookId(), 1, Integer::sum);
+                    }
+                }
+                if (!examplariesByBook.isEmpty()) {
+                    bookService.releaseExamplaries(examplariesByBook);
+                }
+                return Arrays.asList(results);
+            });
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Takes the locks of all the books of a batch, always in the same order.
+     */
+    private List<Lock> lockBooks(List<SimpleLoanDTO> items) {
+        List<Lock> locks = bookLocks.getAll(items.stream().map(SimpleLoanDTO::getBookId).collect(Collectors.toSet()));
+        locks.forEach(Lock::lock);
+        return locks;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bsaoudi.library.loan;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.bsaoudi.library.common.KeysetCursor;
+
+/**
+ * Keyset cursor of the loan pages: the end date and the primary key (creation date time, book id, customer id) of
+ * the last loan. The pages by end date are sorted on all four, the pages of a customer on the primary key only.
+ */
+public final class LoanCursor {
+
+    private final LocalDate endDate;
+
+    private final LocalDateTime creationDateTime;
+
+    private final Integer bookId;
+
+    private final Integer customerId;
+
+    private LoanCursor(LocalDate endDate, LocalDateTime creationDateTime, Integer bookId, Integer customerId) {
+        this.endDate = endDate;
+        this.creationDateTime = creationDateTime;
+        this.bookId = bookId;
+        this.customerId = customerId;
+    }
+
+    /**
+     * @param cursor
+     * @return the decoded cursor, null when there is no cursor (first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static LoanCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String[] values = KeysetCursor.decode(cursor, 4);
+        try {
+            return new LoanCursor(LocalDate.parse(values[0]), LocalDateTime.parse(values[1]), Integer.valueOf(values[2]),
+                    Integer.valueOf(values[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+    }
+
+    public static String encode(LoanDTO loan) {
+        return KeysetCursor.encode(loan.getLoanEndDate(), loan.getCreationDateTime(), loan.getBookDTO().getId(),
+                loan.getCustomerDTO().getId());
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public LocalDateTime getCreationDateTime() {
+        return creationDateTime;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+}
@@ -1,10 +1,13 @@
 package com.bsaoudi.library.loan;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import com.bsaoudi.library.customer.CustomerDTO;
 import com.bsaoudi.library.book.BookDTO;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
@@ -23,6 +26,34 @@ public class LoanDTO implements Comparable<LoanDTO> {
     @ApiModelProperty(value = "Loan ending date")
     private LocalDate loanEndDate;
 
+    /**
+     * Part of the loan key, only used to build the cursors of the loan pages.
+     */
+    @JsonIgnore
+    @ApiModelProperty(hidden = true)
+    private LocalDateTime creationDateTime;
+
+    public LoanDTO() {
+    }
+
+    /**
+     * Constructor of the JPQL projections of ILoanDao, which read the loan with its book and its customer in a single
+     * query.
+     */
+    public LoanDTO(Integer bookId, String isbn, String title, Integer customerId, String firstName, String lastName,
+                   String email, LocalDateTime creationDateTime, LocalDate loanBeginDate, LocalDate loanEndDate) {
+        bookDTO.setId(bookId);
+        bookDTO.setIsbn(isbn);
+        bookDTO.setTitle(title);
+        customerDTO.setId(customerId);
+        customerDTO.setFirstName(firstName);
+        customerDTO.setLastName(lastName);
+        customerDTO.setEmail(email);
+        this.creationDateTime = creationDateTime;
+        this.loanBeginDate = loanBeginDate;
+        this.loanEndDate = loanEndDate;
+    }
+
     public LocalDate getLoanBeginDate() {
         return loanBeginDate;
     }
@@ -39,6 +70,14 @@ public class LoanDTO implements Comparable<LoanDTO> {
         this.loanEndDate = loanEndDate;
     }
 
+    public LocalDateTime getCreationDateTime() {
+        return creationDateTime;
+    }
+
+    public void setCreationDateTime(LocalDateTime creationDateTime) {
+        this.creationDateTime = creationDateTime;
+    }
+
     public BookDTO getBookDTO() {
         return bookDTO;
     }
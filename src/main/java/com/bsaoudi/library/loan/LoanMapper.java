@@ -0,0 +1,65 @@
+package com.bsaoudi.library.loan;
+
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.book.BookDTO;
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.customer.CustomerDTO;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Loan to DTO mappings, implemented by MapStruct at compile time.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface LoanMapper {
+
+    /**
+     * Only the data needed to identify the book and the customer is copied in the LoanDTO.
+     *
+     * @param loan
+     * @return
+     */
+    @Mapping(target = "bookDTO", source = "pk.book", qualifiedByName = "loanBook")
+    @Mapping(target = "customerDTO", source = "pk.customer", qualifiedByName = "loanCustomer")
+    @Mapping(target = "loanBeginDate", source = "beginDate")
+    @Mapping(target = "loanEndDate", source = "endDate")
+    @Mapping(target = "creationDateTime", source = "pk.creationDateTime")
+    public LoanDTO toLoanDTO(Loan loan);
+
+    @Named("loanBook")
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "isbn", source = "isbn")
+    @Mapping(target = "title", source = "title")
+    public BookDTO toLoanBookDTO(Book book);
+
+    @Named("loanCustomer")
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "firstName", source = "firstName")
+    @Mapping(target = "lastName", source = "lastName")
+    @Mapping(target = "email", source = "email")
+    public CustomerDTO toLoanCustomerDTO(Customer customer);
+
+    /**
+     * Transforms a SimpleLoanDTO to a new open Loan, the book and the customer being only referenced by their ids.
+     *
+     * @param simpleLoanDTO
+     * @return
+     */
+    public default Loan toLoan(SimpleLoanDTO simpleLoanDTO) {
+        Loan loan = new Loan();
+        Book book = new Book();
+        book.setId(simpleLoanDTO.getBookId());
+        Customer customer = new Customer();
+        customer.setId(simpleLoanDTO.getCustomerId());
+        loan.setPk(new LoanId(book, customer));
+        loan.setBeginDate(simpleLoanDTO.getBeginDate());
+        loan.setEndDate(simpleLoanDTO.getEndDate());
+        loan.setStatus(LoanStatus.OPEN);
+        return loan;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bsaoudi.library.loan;
+
+/**
+ * Published by the {@link OverdueLoanTracker} when an open loan passes its end date. Any bean can react to it with
+ * an {@code @EventListener}; the listeners are called by the thread moving the tracker clock, outside its lock.
+ */
+public class LoanOverdueEvent {
+
+    private final LoanDTO loan;
+
+    public LoanOverdueEvent(LoanDTO loan) {
+        this.loan = loan;
+    }
+
+    public LoanDTO getLoan() {
+        return loan;
+    }
+}
@@ -1,7 +1,8 @@
 package com.bsaoudi.library.loan;
 
-import com.bsaoudi.library.customer.Customer;
-import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.common.NdjsonWriter;
+import com.bsaoudi.library.common.SliceDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -9,17 +10,18 @@ import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.LocalDate;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
@@ -31,6 +33,10 @@ public class LoanRestController {
 
     private final LoanServiceImpl loanService;
 
+    private final LoanCheckoutService loanCheckoutService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * Returns the history of current loans in the library up to a certain maximum date.
      *
@@ -41,13 +47,48 @@ public class LoanRestController {
     @ApiOperation(value = "List loans realized before the indicated date", response = List.class)
     @ApiResponse(code = 200, message = "Ok: successfully listed")
     public ResponseEntity<List<LoanDTO>> searchAllBooksLoanBeforeThisDate(@RequestParam("date") String maxEndDateStr) {
-        List<Loan> loans = loanService.findAllLoansByEndDateBefore(LocalDate.parse(maxEndDateStr));
-        // on retire tous les élts null que peut contenir cette liste => pour éviter les NPE par la suite
-        loans.removeAll(Collections.singleton(null));
-        List<LoanDTO> loanInfosDtos = mapLoanDtosFromLoans(loans);
+        List<LoanDTO> loanInfosDtos = loanService.findAllLoanDTOsByEndDateBefore(LocalDate.parse(maxEndDateStr));
         return new ResponseEntity<>(loanInfosDtos, HttpStatus.OK);
     }
 
+    /**
+     * Streams the loans realized before a certain date as newline delimited JSON, the most recently begun first.
+     * The loans are written while they are read from the database, so the memory used does not depend on the
+     * number of loans.
+     *
+     * @param maxEndDateStr
+     * @return
+     */
+    @GetMapping("/maxEndDate/stream")
+    @ApiOperation(value = "Stream loans realized before the indicated date, one JSON loan per line", response = LoanDTO.class)
+    @ApiResponse(code = 200, message = "Ok: successfully streamed")
+    public ResponseEntity<StreamingResponseBody> streamAllBooksLoanBeforeThisDate(@RequestParam("date") String maxEndDateStr) {
+        LocalDate maxEndDate = LocalDate.parse(maxEndDateStr);
+        StreamingResponseBody body = out -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, out);
+            loanService.streamLoansByEndDateBefore(maxEndDate, writer::write);
+            writer.finish();
+        };
+        return ResponseEntity.ok().contentType(NdjsonWriter.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Returns the open loans whose end date is past, the most overdue first.
+     *
+     * @return
+     */
+    @GetMapping("/overdue")
+    @ApiOperation(value = "List the open loans past their end date", response = List.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Ok: successfully listed"),
+            @ApiResponse(code = 204, message = "No Content: no overdue loan")})
+    public ResponseEntity<List<LoanDTO>> searchOverdueLoans() {
+        List<LoanDTO> overdueLoans = loanService.getOverdueLoans();
+        if (overdueLoans.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(overdueLoans, HttpStatus.OK);
+    }
+
     /**
      * Returns the list of current loans for a customer.
      *
@@ -58,15 +99,63 @@ public class LoanRestController {
     @ApiOperation(value = "List loans realized before the indicated date", response = List.class)
     @ApiResponse(code = 200, message = "Ok: successfully listed")
     public ResponseEntity<List<LoanDTO>> searchAllOpenedLoansOfThisCustomer(@RequestParam("email") String email) {
-        List<Loan> loans = loanService.getAllOpenLoansOfThisCustomer(email, LoanStatus.OPEN);
-        // on retire tous les élts null que peut contenir cette liste => pour éviter les NPE par la suite
-        loans.removeAll(Collections.singleton(null));
-        List<LoanDTO> loanInfosDtos = mapLoanDtosFromLoans(loans);
+        List<LoanDTO> loanInfosDtos = loanService.getAllOpenLoanDTOsOfThisCustomer(email, LoanStatus.OPEN);
         return new ResponseEntity<>(loanInfosDtos, HttpStatus.OK);
     }
 
     /**
-     * Adds a new loan to the H2 database.
+     * Returns the loans ending before a certain date, one page at a time: the nextCursor of a page gives the
+     * following one. The loans are ordered by end date, then by creation.
+     *
+     * @param maxEndDateStr
+     * @param cursor
+     * @param size
+     * @return
+     */
+    @GetMapping("/maxEndDate/page")
+    @ApiOperation(value = "List loans realized before the indicated date, one page at a time", response = SliceDTO.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Ok: successfully listed"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 400, message = "Bad Request: malformed cursor")})
+    public ResponseEntity<SliceDTO<LoanDTO>> searchAllBooksLoanBeforeThisDatePage(@RequestParam("date") String maxEndDateStr,
+                                                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                  @RequestParam(value = "size", defaultValue = "20") int size) {
+        LoanCursor loanCursor;
+        try {
+            loanCursor = LoanCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return toSliceResponse(loanService.findLoansByEndDateBefore(LocalDate.parse(maxEndDateStr), loanCursor, size));
+    }
+
+    /**
+     * Returns the current loans of a customer, one page at a time: the nextCursor of a page gives the following one.
+     *
+     * @param email
+     * @param cursor
+     * @param size
+     * @return
+     */
+    @GetMapping("/customerLoans/page")
+    @ApiOperation(value = "List the current loans of a customer, one page at a time", response = SliceDTO.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Ok: successfully listed"),
+            @ApiResponse(code = 204, message = "No Content: no result founded"),
+            @ApiResponse(code = 400, message = "Bad Request: malformed cursor")})
+    public ResponseEntity<SliceDTO<LoanDTO>> searchAllOpenedLoansOfThisCustomerPage(@RequestParam("email") String email,
+                                                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                    @RequestParam(value = "size", defaultValue = "20") int size) {
+        LoanCursor loanCursor;
+        try {
+            loanCursor = LoanCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return toSliceResponse(loanService.getOpenLoansOfThisCustomer(email, LoanStatus.OPEN, loanCursor, size));
+    }
+
+    /**
+     * Adds a new loan to the H2 database, if an examplary of the book is available.
      *
      * @param simpleLoanDTORequest
      * @param uriComponentBuilder
@@ -74,22 +163,20 @@ public class LoanRestController {
      */
     @PostMapping("/addLoan")
     @ApiOperation(value = "Add a new Loan in the Library", response = LoanDTO.class)
-    @ApiResponses(value = {@ApiResponse(code = 409, message = "Conflict: the loan already exist"),
+    @ApiResponses(value = {@ApiResponse(code = 409, message = "Conflict: the loan already exist, or no examplary of the book is available"),
             @ApiResponse(code = 201, message = "Created: the loan is successfully inserted"),
-            @ApiResponse(code = 304, message = "Not Modified: the loan is unsuccessfully inserted")})
+            @ApiResponse(code = 404, message = "Not Found: no such book or customer")})
     public ResponseEntity<Boolean> createNewLoan(@RequestBody SimpleLoanDTO simpleLoanDTORequest,
                                                  UriComponentsBuilder uriComponentBuilder) {
-        boolean isLoanExists = loanService.checkIfLoanExists(simpleLoanDTORequest);
-        if (isLoanExists) {
-            return new ResponseEntity<>(false, HttpStatus.CONFLICT);
+        CheckoutResult result = loanCheckoutService.checkout(simpleLoanDTORequest);
+        switch (result) {
+            case CHECKED_OUT:
+                return new ResponseEntity<>(true, HttpStatus.CREATED);
+            case NOT_FOUND:
+                return new ResponseEntity<>(false, HttpStatus.NOT_FOUND);
+            default:
+                return new ResponseEntity<>(false, HttpStatus.CONFLICT);
         }
-        Loan loanRequest = mapSimpleLoanDTOToLoan(simpleLoanDTORequest);
-        Loan loan = loanService.saveLoan(loanRequest);
-        if (loan != null) {
-            return new ResponseEntity<>(true, HttpStatus.CREATED);
-        }
-        return new ResponseEntity<>(false, HttpStatus.NOT_MODIFIED);
-
     }
 
     /**
@@ -102,72 +189,70 @@ public class LoanRestController {
     @PostMapping("/closeLoan")
     @ApiOperation(value = "Marks as close a Loan in the Library", response = Boolean.class)
     @ApiResponses(value = {@ApiResponse(code = 204, message = "No Content: no loan founded"),
-            @ApiResponse(code = 200, message = "Ok: the loan is successfully closed"),
-            @ApiResponse(code = 304, message = "Not Modified: the loan is unsuccessfully closed")})
+            @ApiResponse(code = 200, message = "Ok: the loan is successfully closed")})
     public ResponseEntity<Boolean> closeLoan(@RequestBody SimpleLoanDTO simpleLoanDTORequest,
                                              UriComponentsBuilder uriComponentBuilder) {
-        Loan existingLoan = loanService.getOpenedLoan(simpleLoanDTORequest);
-        if (existingLoan == null) {
+        if (!loanCheckoutService.checkin(simpleLoanDTORequest)) {
             return new ResponseEntity<>(false, HttpStatus.NO_CONTENT);
         }
-        existingLoan.setStatus(LoanStatus.CLOSE);
-        Loan loan = loanService.saveLoan(existingLoan);
-        if (loan != null) {
-            return new ResponseEntity<>(true, HttpStatus.OK);
-        }
-        return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
-
+        return new ResponseEntity<>(true, HttpStatus.OK);
     }
 
     /**
-     * Transform a Loan List to LoanDTO List.
+     * Adds several loans in one transaction, e.g. the stack of books brought by a customer.
      *
-     * @param loans
+     * @param simpleLoanDTORequests
      * @return
      */
-    private List<LoanDTO> mapLoanDtosFromLoans(List<Loan> loans) {
-
-        Function<Loan, LoanDTO> mapperFunction = loan -> {
-            // dans loanDTO on ajoute que les données nécessaires
-            LoanDTO loanDTO = new LoanDTO();
-            loanDTO.getBookDTO().setId(loan.getPk().getBook().getId());
-            loanDTO.getBookDTO().setIsbn(loan.getPk().getBook().getIsbn());
-            loanDTO.getBookDTO().setTitle(loan.getPk().getBook().getTitle());
-
-            loanDTO.getCustomerDTO().setId(loan.getPk().getCustomer().getId());
-            loanDTO.getCustomerDTO().setFirstName(loan.getPk().getCustomer().getFirstName());
-            loanDTO.getCustomerDTO().setLastName(loan.getPk().getCustomer().getLastName());
-            loanDTO.getCustomerDTO().setEmail(loan.getPk().getCustomer().getEmail());
-
-            loanDTO.setLoanBeginDate(loan.getBeginDate());
-            loanDTO.setLoanEndDate(loan.getEndDate());
-            return loanDTO;
-        };
-
-        if (!CollectionUtils.isEmpty(loans)) {
-            return loans.stream().map(mapperFunction).sorted().collect(Collectors.toList());
+    @PostMapping("/addLoans")
+    @ApiOperation(value = "Add several Loans in the Library in one transaction", response = List.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Ok: the status of each loan, in the order of the request"),
+            @ApiResponse(code = 400, message = "Bad Request: no loan, too many loans or a loan without dates")})
+    public ResponseEntity<List<LoanBatchItemDTO>> createNewLoans(@RequestBody List<SimpleLoanDTO> simpleLoanDTORequests) {
+        if (!isValidBatch(simpleLoanDTORequests)
+                || simpleLoanDTORequests.stream().anyMatch(loan -> loan.getBeginDate() == null || loan.getEndDate() == null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        return Collections.emptyList();
+        List<CheckoutResult> results = loanCheckoutService.checkoutAll(simpleLoanDTORequests);
+        return new ResponseEntity<>(toBatchItems(simpleLoanDTORequests, results), HttpStatus.OK);
     }
 
     /**
-     * Transforme un SimpleLoanDTO en Loan avec les données minimalistes nécessaires
+     * Closes several loans in one transaction.
      *
-     * @param simpleLoanDTO
+     * @param simpleLoanDTORequests
      * @return
      */
-    private Loan mapSimpleLoanDTOToLoan(SimpleLoanDTO simpleLoanDTO) {
-        Loan loan = new Loan();
-        Book book = new Book();
-        book.setId(simpleLoanDTO.getBookId());
-        Customer customer = new Customer();
-        customer.setId(simpleLoanDTO.getCustomerId());
-        LoanId loanId = new LoanId(book, customer);
-        loan.setPk(loanId);
-        loan.setBeginDate(simpleLoanDTO.getBeginDate());
-        loan.setEndDate(simpleLoanDTO.getEndDate());
-        loan.setStatus(LoanStatus.OPEN);
-        return loan;
+    @PostMapping("/closeLoans")
+    @ApiOperation(value = "Marks as close several Loans in the Library in one transaction", response = List.class)
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Ok: the status of each loan, in the order of the request"),
+            @ApiResponse(code = 400, message = "Bad Request: no loan or too many loans")})
+    public ResponseEntity<List<LoanBatchItemDTO>> closeLoans(@RequestBody List<SimpleLoanDTO> simpleLoanDTORequests) {
+        if (!isValidBatch(simpleLoanDTORequests)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<CheckinResult> results = loanCheckoutService.checkinAll(simpleLoanDTORequests);
+        return new ResponseEntity<>(toBatchItems(simpleLoanDTORequests, results), HttpStatus.OK);
+    }
+
+    private static boolean isValidBatch(List<SimpleLoanDTO> loans) {
+        return loans != null && !loans.isEmpty() && loans.size() <= LoanCheckoutService.MAX_BATCH_SIZE
+                && loans.stream().allMatch(Objects::nonNull);
+    }
+
+    private static List<LoanBatchItemDTO> toBatchItems(List<SimpleLoanDTO> loans, List<? extends Enum<?>> results) {
+        List<LoanBatchItemDTO> items = new ArrayList<>(loans.size());
+        for (int i = 0; i < loans.size(); i++) {
+            items.add(new LoanBatchItemDTO(loans.get(i).getBookId(), loans.get(i).getCustomerId(), results.get(i).name()));
+        }
+        return items;
+    }
+
+    private ResponseEntity<SliceDTO<LoanDTO>> toSliceResponse(Slice<LoanDTO> loans) {
+        if (!loans.hasContent()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(SliceDTO.of(loans, Function.identity(), LoanCursor::encode), HttpStatus.OK);
     }
 
 }
\ No newline at end of file
@@ -1,12 +1,29 @@
 package com.bsaoudi.library.loan;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.bsaoudi.library.book.BookSuggester;
+import com.bsaoudi.library.common.KeysetCursor;
+import com.bsaoudi.library.common.TransactionHooks;
+import com.bsaoudi.library.customer.Customer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * The searches run in read-only transactions, without snapshots of the loaded loans nor flushes.
+ */
 @Service("loanService")
 @RequiredArgsConstructor
 @Transactional
@@ -14,14 +31,88 @@ public class LoanServiceImpl implements ILoanService {
 
     private final ILoanDao loanDao;
 
+    private final LoanBatchDao loanBatchDao;
+
+    private final BookSuggester bookSuggester;
+
+    private final OverdueLoanTracker overdueLoanTracker;
+
+    private final LoanMapper loanMapper;
+
+    /**
+     * Loads the open loans in the overdue tracker once the application is started. The loans saved or closed while
+     * they are read are kept by the tracker.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void trackOpenLoans() {
+        overdueLoanTracker.rebuild(() -> loanDao.findLoanDTOsByStatus(LoanStatus.OPEN), LocalDate.now());
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> findAllLoansByEndDateBefore(LocalDate maxEndDate) {
         return loanDao.findByEndDateBefore(maxEndDate);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllOpenLoansOfThisCustomer(String email, LoanStatus status) {
-        return loanDao.getAllOpenLoansOfThisCustomer(email, status);
+        return loanDao.getAllOpenLoansOfThisCustomer(Customer.emailKey(email), status);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LoanDTO> findAllLoanDTOsByEndDateBefore(LocalDate maxEndDate) {
+        return loanDao.findLoanDTOsByEndDateBefore(maxEndDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LoanDTO> getAllOpenLoanDTOsOfThisCustomer(String email, LoanStatus status) {
+        return loanDao.getAllOpenLoanDTOsOfThisCustomer(Customer.emailKey(email), status);
+    }
+
+    /**
+     * Returns the open loans past their end date, from the overdue tracker: the loan table is not read.
+     */
+    @Override
+    public List<LoanDTO> getOverdueLoans() {
+        return overdueLoanTracker.getOverdueLoans();
+    }
+
+    /**
+     * Hands the loans ending before the date to the consumer one at a time, while they are read from the database
+     * cursor. The rows are projected on LoanDTO, so nothing piles up in the persistence context.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamLoansByEndDateBefore(LocalDate maxEndDate, Consumer<LoanDTO> consumer) {
+        try (Stream<LoanDTO> loans = loanDao.streamLoanDTOsByEndDateBefore(maxEndDate)) {
+            loans.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LoanDTO> findLoansByEndDateBefore(LocalDate maxEndDate, LoanCursor cursor, int size) {
+        Pageable pageable = KeysetCursor.limit(size);
+        if (cursor == null) {
+            return loanDao.findByEndDateBeforeOrderByKey(maxEndDate, pageable);
+        }
+        return loanDao.findByEndDateBeforeAfterKey(maxEndDate, cursor.getEndDate(), cursor.getCreationDateTime(),
+                cursor.getBookId(), cursor.getCustomerId(), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LoanDTO> getOpenLoansOfThisCustomer(String email, LoanStatus status, LoanCursor cursor, int size) {
+        Pageable pageable = KeysetCursor.limit(size);
+        if (cursor == null) {
+            return loanDao.getOpenLoansOfThisCustomerOrderByKey(Customer.emailKey(email), status, pageable);
+        }
+        return loanDao.getOpenLoansOfThisCustomerAfterKey(Customer.emailKey(email), status, cursor.getCreationDateTime(),
+                cursor.getBookId(), cursor.getCustomerId(), pageable);
     }
 
     @Override
@@ -31,15 +122,32 @@ public class LoanServiceImpl implements ILoanService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean checkIfLoanExists(SimpleLoanDTO simpleLoanDTO) {
         Loan loan = loanDao.getLoanByCriteria(simpleLoanDTO.getBookId(),
                 simpleLoanDTO.getCustomerId(), LoanStatus.OPEN);
         return loan != null;
     }
 
+    /**
+     * Saves the loan. A new (OPEN) loan also makes its book more popular in the autocomplete suggestions, and is
+     * followed by the overdue tracker. The tracked LoanDTO is mapped from the saved loan, whose book and customer are
+     * the managed entities even when the given loan only held their ids.
+     */
     @Override
     public Loan saveLoan(Loan loan) {
-        return loanDao.save(loan);
+        Loan savedLoan = loanDao.save(loan);
+        if (savedLoan.getStatus() == LoanStatus.OPEN) {
+            Integer bookId = savedLoan.getPk().getBook().getId();
+            LoanDTO loanDTO = loanMapper.toLoanDTO(savedLoan);
+            TransactionHooks.afterCommit(() -> {
+                bookSuggester.recordLoan(bookId);
+                overdueLoanTracker.track(loanDTO);
+            });
+        } else {
+            untrackAfterCommit(savedLoan);
+        }
+        return savedLoan;
     }
 
     /**
@@ -48,5 +156,65 @@ public class LoanServiceImpl implements ILoanService {
     @Override
     public void closeLoan(Loan loan) {
         loanDao.save(loan);
+        untrackAfterCommit(loan);
+    }
+
+    /**
+     * Reads in one query the books, customers and open loans of a batch of loans.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<LoanBatchDao.ItemCheck> checkLoans(List<SimpleLoanDTO> items) {
+        return loanBatchDao.check(items);
+    }
+
+    /**
+     * Inserts new open loans with one JDBC batch. As for saveLoan, their books become more popular in the
+     * autocomplete suggestions and the loans are followed by the overdue tracker.
+     */
+    @Override
+    public void saveOpenLoans(List<SimpleLoanDTO> loans) {
+        if (loans.isEmpty()) {
+            return;
+        }
+        loanBatchDao.insertOpenLoans(loans, LocalDateTime.now());
+        Set<Integer> bookIds = loans.stream().map(SimpleLoanDTO::getBookId).collect(Collectors.toSet());
+        Set<Integer> customerIds = loans.stream().map(SimpleLoanDTO::getCustomerId).collect(Collectors.toSet());
+        Set<List<Integer>> savedLoans = loans.stream().map(loan -> Arrays.asList(loan.getBookId(), loan.getCustomerId()))
+                .collect(Collectors.toSet());
+        List<LoanDTO> loanDTOs = loanDao.findLoanDTOsOfBooksAndCustomers(bookIds, customerIds, LoanStatus.OPEN).stream()
+                .filter(loan -> savedLoans.contains(Arrays.asList(loan.getBookDTO().getId(), loan.getCustomerDTO().getId())))
+                .collect(Collectors.toList());
+        TransactionHooks.afterCommit(() -> {
+            loans.forEach(loan -> bookSuggester.recordLoan(loan.getBookId()));
+            loanDTOs.forEach(overdueLoanTracker::track);
+        });
+    }
+
+    /**
+     * Closes open loans with one JDBC batch.
+     *
+     * @return for each loan, true if it was open and is now closed
+     */
+    @Override
+    public boolean[] closeOpenLoans(List<SimpleLoanDTO> loans) {
+        if (loans.isEmpty()) {
+            return new boolean[0];
+        }
+        boolean[] closed = loanBatchDao.closeOpenLoans(loans);
+        TransactionHooks.afterCommit(() -> {
+            for (int i = 0; i < closed.length; i++) {
+                if (closed[i]) {
+                    overdueLoanTracker.untrack(loans.get(i).getBookId(), loans.get(i).getCustomerId());
+                }
+            }
+        });
+        return closed;
+    }
+
+    private void untrackAfterCommit(Loan loan) {
+        Integer bookId = loan.getPk().getBook().getId();
+        Integer customerId = loan.getPk().getCustomer().getId();
+        TransactionHooks.afterCommit(() -> overdueLoanTracker.untrack(bookId, customerId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,273 @@
+package com.bsaoudi.library.loan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory tracker of the open loans, ordered by end date with one bucket per day. The loans ending before the
+ * current day of the tracker are overdue; moving the day forward only visits the buckets it passes, and a
+ * {@link LoanOverdueEvent} is published for each of their loans. The tracker is loaded once from the database, then
+ * kept up to date by the loan service after each commit, so its cost depends on the loans changing state and not on
+ * the size of the loan table. A customer having at most one open loan of a book, the loans are identified by their
+ * book and customer.
+ * <p>
+ * A rebuild reads the open loans without blocking the tracker, then swaps the new loans in. The loans tracked or
+ * untracked in the meantime are replayed on the new loans before the swap, so they are not lost.
+ */
+@Component
+@RequiredArgsConstructor
+public class OverdueLoanTracker {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TrackedLoans loans = new TrackedLoans();
+
+    private List<Consumer<TrackedLoans>> changesDuringRebuild;
+
+    private LocalDate today = LocalDate.now();
+
+    /**
+     * Replaces the tracked loans. The loans already overdue are not published again.
+     *
+     * @param openLoans
+     * @param today
+     */
+    public void rebuild(Collection<LoanDTO> openLoans, LocalDate today) {
+        rebuild(() -> openLoans, today);
+    }
+
+    /**
+     * Replaces the tracked loans by the open loans read from the supplier, keeping the changes tracked while they
+     * are read. The loans already overdue are not published again.
+     *
+     * @param openLoans
+     * @param today
+     */
+    public void rebuild(Supplier<Collection<LoanDTO>> openLoans, LocalDate today) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TrackedLoans rebuilt = new TrackedLoans();
+        boolean read = false;
+        try {
+            openLoans.get().forEach(rebuilt::add);
+            read = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (read) {
+                    changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    loans = rebuilt;
+                    this.today = today;
+                }
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Tracks a new open loan, or replaces it. A loan ending before the current day is published at once.
+     *
+     * @param loan
+     */
+    public void track(LoanDTO loan) {
+        boolean overdue;
+        lock.writeLock().lock();
+        try {
+            overdue = apply(tracked -> tracked.replace(loan)) && loan.getLoanEndDate().isBefore(today);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (overdue) {
+            eventPublisher.publishEvent(new LoanOverdueEvent(loan));
+        }
+    }
+
+    /**
+     * Stops tracking the open loan of the book by the customer, once closed.
+     *
+     * @param bookId
+     * @param customerId
+     */
+    public void untrack(Integer bookId, Integer customerId) {
+        lock.writeLock().lock();
+        try {
+            LoanKey key = new LoanKey(bookId, customerId);
+            apply(tracked -> tracked.delete(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the tracker to the given day, and publishes the loans which became overdue in between.
+     *
+     * @param date
+     * @return the number of loans which became overdue
+     */
+    public int advance(LocalDate date) {
+        List<LoanDTO> becameOverdue = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (!date.isAfter(today)) {
+                return 0;
+            }
+            loans.loansByEndDate.subMap(today, true, date, false).values()
+                    .forEach(sameDay -> becameOverdue.addAll(sameDay.values()));
+            today = date;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        becameOverdue.forEach(loan -> eventPublisher.publishEvent(new LoanOverdueEvent(loan)));
+        return becameOverdue.size();
+    }
+
+    /**
+     * Checks regularly whether the day has changed, which only costs a date comparison the rest of the time.
+     */
+    @Scheduled(fixedDelayString = "${library.loan.overdue.check-interval-ms:60000}")
+    public void checkOverdueLoans() {
+        advance(LocalDate.now());
+    }
+
+    /**
+     * @return the overdue loans, the most overdue first
+     */
+    public List<LoanDTO> getOverdueLoans() {
+        lock.readLock().lock();
+        try {
+            List<LoanDTO> overdueLoans = new ArrayList<>();
+            loans.loansByEndDate.headMap(today, false).values().forEach(sameDay -> overdueLoans.addAll(sameDay.values()));
+            return overdueLoans;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of tracked open loans
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return loans.endDateByLoan.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the tracked loans, and records it for the loans being rebuilt if any. Called with the
+     * write lock held.
+     */
+    private <T> T apply(Function<TrackedLoans, T> change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change::apply);
+        }
+        return change.apply(loans);
+    }
+
+    /**
+     * The open loans, by end date and by key.
+     */
+    private static final class TrackedLoans {
+
+        private final NavigableMap<LocalDate, Map<LoanKey, LoanDTO>> loansByEndDate = new TreeMap<>();
+
+        private final Map<LoanKey, LocalDate> endDateByLoan = new HashMap<>();
+
+        /**
+         * Loans without end date can never be overdue, they are not tracked.
+         */
+        private boolean add(LoanDTO loan) {
+            if (loan.getLoanEndDate() == null) {
+                return false;
+            }
+            LoanKey key = LoanKey.of(loan);
+            loansByEndDate.computeIfAbsent(loan.getLoanEndDate(), date -> new LinkedHashMap<>()).put(key, loan);
+            endDateByLoan.put(key, loan.getLoanEndDate());
+            return true;
+        }
+
+        private boolean replace(LoanDTO loan) {
+            delete(LoanKey.of(loan));
+            return add(loan);
+        }
+
+        private boolean delete(LoanKey key) {
+            LocalDate endDate = endDateByLoan.remove(key);
+            if (endDate == null) {
+                return false;
+            }
+            Map<LoanKey, LoanDTO> sameDay = loansByEndDate.getOrDefault(endDate, Collections.emptyMap());
+            sameDay.remove(key);
+            if (sameDay.isEmpty()) {
+                loansByEndDate.remove(endDate);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Book and customer of an open loan.
+     */
+    private static final class LoanKey {
+
+        private final Integer bookId;
+
+        private final Integer customerId;
+
+        private LoanKey(Integer bookId, Integer customerId) {
+            this.bookId = bookId;
+            this.customerId = customerId;
+        }
+
+        private static LoanKey of(LoanDTO loan) {
+            return new LoanKey(loan.getBookDTO().getId(), loan.getCustomerDTO().getId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LoanKey)) {
+                return false;
+            }
+            LoanKey other = (LoanKey) o;
+            return Objects.equals(bookId, other.bookId) && Objects.equals(customerId, other.customerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bookId, customerId);
+        }
+    }
+}
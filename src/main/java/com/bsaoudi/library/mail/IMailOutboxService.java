@@ -0,0 +1,17 @@
+package com.bsaoudi.library.mail;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IMailOutboxService {
+
+    public OutboxMail enqueue(String sender, String recipient, String subject, String content);
+
+    public List<OutboxMail> claimDueMails(int batchSize);
+
+    public void markSent(Collection<Integer> mailIds);
+
+    public void markFailed(Integer mailId, String error);
+
+    public long countMails(MailStatus status);
+}
@@ -0,0 +1,33 @@
+package com.bsaoudi.library.mail;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IOutboxMailDao extends JpaRepository<OutboxMail, Integer> {
+
+    public List<OutboxMail> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(MailStatus status, LocalDateTime now,
+                                                                                   Pageable pageable);
+
+    /**
+     * Leases the mail if it is still pending with the next attempt date it was read with.
+     *
+     * @return 0 when another dispatcher claimed or sent the mail since it was read
+     */
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.nextAttemptAt = ?3 WHERE m.id = ?1 AND m.status = ?4 AND m.nextAttemptAt = ?2")
+    public int lease(Integer id, LocalDateTime seenNextAttemptAt, LocalDateTime leaseEnd, MailStatus status);
+
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.status = ?2, m.sentDateTime = ?3, m.attempts = m.attempts + 1, m.lastError = NULL WHERE m.id IN ?1")
+    public int markSent(Collection<Integer> ids, MailStatus status, LocalDateTime sentDateTime);
+
+    public long countByStatus(MailStatus status);
+}
@@ -0,0 +1,147 @@
+package com.bsaoudi.library.mail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the mail outbox. Each poll claims batches of due mails and hands them to a bounded pool of workers; a
+ * worker sends its whole batch through one SMTP connection, then records which mails were sent and which ones
+ * failed and must be retried later.
+ */
+@Component
+public class MailDispatcher {
+
+    public static final Logger LOGGER = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private final IMailOutboxService mailOutboxService;
+
+    private final JavaMailSender javaMailSender;
+
+    private final MailOutboxProperties properties;
+
+    private final ExecutorService workers;
+
+    private final Semaphore idleWorkers;
+
+    public MailDispatcher(IMailOutboxService mailOutboxService, JavaMailSender javaMailSender, MailOutboxProperties properties) {
+        this.mailOutboxService = mailOutboxService;
+        this.javaMailSender = javaMailSender;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(), task -> {
+            Thread thread = new Thread(task, "mail-dispatcher-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idleWorkers = new Semaphore(properties.getWorkers());
+    }
+
+    /**
+     * Claims a batch for every idle worker, as long as there are due mails.
+     */
+    @Scheduled(initialDelayString = "${library.mail.outbox.poll-interval-ms:1000}",
+            fixedDelayString = "${library.mail.outbox.poll-interval-ms:1000}")
+    public synchronized void dispatch() {
+        while (idleWorkers.tryAcquire()) {
+            List<OutboxMail> batch;
+            try {
+                batch = mailOutboxService.claimDueMails(properties.getBatchSize());
+            } catch (RuntimeException e) {
+                idleWorkers.release();
+                throw e;
+            }
+            if (batch.isEmpty()) {
+                idleWorkers.release();
+                return;
+            }
+            workers.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    idleWorkers.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true if no batch is being sent
+     */
+    public boolean isIdle() {
+        return idleWorkers.availablePermits() == properties.getWorkers();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void send(List<OutboxMail> batch) {
+        Map<MimeMessage, OutboxMail> mailsByMessage = new LinkedHashMap<>();
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        for (OutboxMail mail : batch) {
+            MimeMessage message = javaMailSender.createMimeMessage();
+            try {
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setFrom(mail.getSender());
+                helper.setTo(mail.getRecipient());
+                helper.setSubject(mail.getSubject() != null ? mail.getSubject() : "");
+                helper.setText(mail.getContent() != null ? mail.getContent() : "");
+                helper.setSentDate(new Date());
+                mailsByMessage.put(message, mail);
+            } catch (MessagingException e) {
+                failures.put(mail, e);
+            }
+        }
+
+        if (!mailsByMessage.isEmpty()) {
+            try {
+                // one connection for the whole batch
+                javaMailSender.send(mailsByMessage.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    mailsByMessage.keySet().forEach(message -> failures.put(message, e));
+                } else {
+                    failures.putAll(e.getFailedMessages());
+                }
+            } catch (MailException e) {
+                mailsByMessage.keySet().forEach(message -> failures.put(message, e));
+            }
+        }
+
+        List<Integer> sentIds = new ArrayList<>();
+        mailsByMessage.forEach((message, mail) -> {
+            if (!failures.containsKey(message)) {
+                sentIds.add(mail.getId());
+            }
+        });
+        mailOutboxService.markSent(sentIds);
+        failures.forEach((failed, error) -> {
+            OutboxMail mail = failed instanceof OutboxMail ? (OutboxMail) failed : mailsByMessage.get(failed);
+            LOGGER.warn("Mail {} to {} not sent: {}", mail.getId(), mail.getRecipient(), error.getMessage());
+            mailOutboxService.markFailed(mail.getId(), error.getMessage());
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.bsaoudi.library.mail;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the mail outbox, bound from the library.mail.outbox.* properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "library.mail.outbox")
+public class MailOutboxProperties {
+
+    /**
+     * Delay between two polls of the outbox, in milliseconds.
+     */
+    private long pollIntervalMs = 1000;
+
+    /**
+     * Maximum number of mails sent through one SMTP connection.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Number of batches sent at the same time.
+     */
+    private int workers = 2;
+
+    /**
+     * Number of attempts after which a mail is abandoned (FAILED).
+     */
+    private int maxAttempts = 6;
+
+    /**
+     * Delay before the second attempt, doubled after each new failure up to maxBackoff.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    /**
+     * Time for which the claimed mails are hidden from the next polls. If the application stops while sending,
+     * the mails are sent again once it has elapsed.
+     */
+    private Duration lease = Duration.ofMinutes(5);
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public Duration getLease() {
+        return lease;
+    }
+
+    public void setLease(Duration lease) {
+        this.lease = lease;
+    }
+}
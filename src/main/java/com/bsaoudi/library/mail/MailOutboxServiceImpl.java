@@ -0,0 +1,99 @@
+package com.bsaoudi.library.mail;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service("mailOutboxService")
+@Transactional
+@RequiredArgsConstructor
+public class MailOutboxServiceImpl implements IMailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final IOutboxMailDao outboxMailDao;
+
+    private final MailOutboxProperties properties;
+
+    /**
+     * Stores the mail in the outbox, it will be sent by the {@link MailDispatcher} once the transaction is committed.
+     */
+    @Override
+    public OutboxMail enqueue(String sender, String recipient, String subject, String content) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMail mail = new OutboxMail();
+        mail.setSender(sender);
+        mail.setRecipient(recipient);
+        mail.setSubject(subject);
+        mail.setContent(content);
+        mail.setStatus(MailStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setCreationDateTime(now);
+        mail.setNextAttemptAt(now);
+        return outboxMailDao.save(mail);
+    }
+
+    /**
+     * Returns the oldest mails due for sending, and leases them so that the next polls skip them while they are sent.
+     * Each lease is an update conditioned on the next attempt date read, so that a mail claimed by another instance in
+     * the meantime is left to it.
+     */
+    @Override
+    public List<OutboxMail> claimDueMails(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMail> mails = outboxMailDao.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(MailStatus.PENDING,
+                now, PageRequest.of(0, batchSize));
+        LocalDateTime leaseEnd = now.plus(properties.getLease());
+        List<OutboxMail> claimed = new ArrayList<>(mails.size());
+        for (OutboxMail mail : mails) {
+            if (outboxMailDao.lease(mail.getId(), mail.getNextAttemptAt(), leaseEnd, MailStatus.PENDING) == 1) {
+                claimed.add(mail);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void markSent(Collection<Integer> mailIds) {
+        if (!mailIds.isEmpty()) {
+            outboxMailDao.markSent(mailIds, MailStatus.SENT, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Schedules the next attempt after an exponential backoff, or abandons the mail after the last attempt.
+     */
+    @Override
+    public void markFailed(Integer mailId, String error) {
+        outboxMailDao.findById(mailId).ifPresent(mail -> {
+            mail.setAttempts(mail.getAttempts() + 1);
+            mail.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            if (mail.getAttempts() >= properties.getMaxAttempts()) {
+                mail.setStatus(MailStatus.FAILED);
+            } else {
+                mail.setNextAttemptAt(LocalDateTime.now().plus(backoff(mail.getAttempts())));
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countMails(MailStatus status) {
+        return outboxMailDao.countByStatus(status);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff();
+        for (int i = 1; i < attempts && backoff.compareTo(properties.getMaxBackoff()) < 0; i++) {
+            backoff = backoff.multipliedBy(2);
+        }
+        return backoff.compareTo(properties.getMaxBackoff()) < 0 ? backoff : properties.getMaxBackoff();
+    }
+}
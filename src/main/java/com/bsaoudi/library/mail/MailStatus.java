@@ -0,0 +1,8 @@
+package com.bsaoudi.library.mail;
+
+public enum MailStatus {
+
+    PENDING,
+    SENT,
+    FAILED
+}
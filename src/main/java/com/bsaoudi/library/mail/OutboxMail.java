@@ -0,0 +1,153 @@
+package com.bsaoudi.library.mail;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * A mail waiting in the outbox to be sent by the {@link MailDispatcher}, or the trace of a sent or abandoned one.
+ */
+@Entity
+@Table(name = "MAIL_OUTBOX", indexes = @Index(name = "IDX_MAIL_OUTBOX_DUE", columnList = "STATUS, NEXT_ATTEMPT_AT"))
+public class OutboxMail {
+
+    private Integer id;
+
+    private String sender;
+
+    private String recipient;
+
+    private String subject;
+
+    private String content;
+
+    private MailStatus status;
+
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime creationDateTime;
+
+    private LocalDateTime sentDateTime;
+
+    private String lastError;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MAIL_OUTBOX_SEQ")
+    @SequenceGenerator(name = "MAIL_OUTBOX_SEQ", sequenceName = "MAIL_OUTBOX_SEQ", allocationSize = 50)
+    @Column(name = "MAIL_ID")
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    @Column(name = "SENDER", nullable = false)
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    @Column(name = "RECIPIENT", nullable = false)
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    @Column(name = "SUBJECT")
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    @Lob
+    @Column(name = "CONTENT")
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false)
+    public MailStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(MailStatus status) {
+        this.status = status;
+    }
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * Time from which the mail may be sent: its creation, the end of the backoff after a failure, or the end of the
+     * lease taken by a dispatch in progress.
+     */
+    @Column(name = "NEXT_ATTEMPT_AT", nullable = false)
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    @Column(name = "CREATION_DATE_TIME", nullable = false)
+    public LocalDateTime getCreationDateTime() {
+        return creationDateTime;
+    }
+
+    public void setCreationDateTime(LocalDateTime creationDateTime) {
+        this.creationDateTime = creationDateTime;
+    }
+
+    @Column(name = "SENT_DATE_TIME")
+    public LocalDateTime getSentDateTime() {
+        return sentDateTime;
+    }
+
+    public void setSentDateTime(LocalDateTime sentDateTime) {
+        this.sentDateTime = sentDateTime;
+    }
+
+    @Column(name = "LAST_ERROR", length = 1000)
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
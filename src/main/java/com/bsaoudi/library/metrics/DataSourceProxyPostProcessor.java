@@ -0,0 +1,39 @@
+package com.bsaoudi.library.metrics;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the data source in a proxy notifying the {@link StatementLogListener} of each statement executed, whether
+ * it comes from Hibernate or from a JdbcTemplate. The result sets of the sampled statements are proxied too, to count
+ * the rows read.
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlLogProperties> sqlLogProperties;
+
+    public DataSourceProxyPostProcessor(ObjectProvider<SqlLogProperties> sqlLogProperties) {
+        this.sqlLogProperties = sqlLogProperties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+            StatementLogListener listener = new StatementLogListener(sqlLogProperties.getObject());
+            return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                    .listener(listener)
+                    .methodListener(listener)
+                    .jdbcProxyFactory(listener.jdbcProxyFactory())
+                    .proxyResultSet()
+                    .build();
+        }
+        return bean;
+    }
+}
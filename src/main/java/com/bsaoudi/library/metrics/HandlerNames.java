@@ -0,0 +1,35 @@
+package com.bsaoudi.library.metrics;
+
+import java.lang.reflect.Method;
+
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Names of the controller methods of the library, used as the "handler" tag of the request metrics.
+ */
+final class HandlerNames {
+
+    private static final String LIBRARY_PACKAGE = "com.bsaoudi.library.";
+
+    private HandlerNames() {
+    }
+
+    /**
+     * @param handler
+     * @return SimpleClassName.method for a controller method of the library, null for any other handler
+     */
+    static String of(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return null;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        return of(handlerMethod.getBeanType(), handlerMethod.getMethod());
+    }
+
+    static String of(Class<?> beanType, Method method) {
+        if (!beanType.getName().startsWith(LIBRARY_PACKAGE)) {
+            return null;
+        }
+        return beanType.getSimpleName() + "." + method.getName();
+    }
+}
@@ -0,0 +1,54 @@
+package com.bsaoudi.library.metrics;
+
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Request metrics per controller method: the http.server.requests timers of Spring Boot get a "handler" tag (the
+ * same path may be served by several methods, by content type), and the statements executed per request are
+ * counted and timed.
+ */
+@Configuration(proxyBeanMethods = false)
+@RequiredArgsConstructor
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    private final SqlLogProperties sqlLogProperties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(meterRegistry, sqlLogProperties));
+    }
+
+    @Bean
+    public WebMvcTagsContributor handlerTagContributor() {
+        return new WebMvcTagsContributor() {
+
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request,
+                    HttpServletResponse response, Object handler, Throwable exception) {
+                String handlerName = HandlerNames.of(handler);
+                return Tags.of("handler", handlerName == null ? "none" : handlerName);
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Collections.emptyList();
+            }
+        };
+    }
+}
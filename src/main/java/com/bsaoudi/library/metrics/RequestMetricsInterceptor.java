@@ -0,0 +1,100 @@
+package com.bsaoudi.library.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records the statements executed by each call of a controller method: their number in the library.http.db.queries
+ * summary and their time in the library.http.db.time timer, both tagged with the handler. The requests running
+ * many statements (N+1 selects) or spending long in the database are logged, the other ones only at debug level.
+ * An asynchronous response is recorded once, when its async dispatch completes: the statements run before it is
+ * handed over to its own thread are kept in a request attribute until then.
+ */
+@RequiredArgsConstructor
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String DB_QUERIES = "library.http.db.queries";
+
+    public static final String DB_TIME = "library.http.db.time";
+
+    private static final String STATEMENTS_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".statements";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("library.sql.request");
+
+    private final MeterRegistry meterRegistry;
+
+    private final SqlLogProperties sqlLogProperties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (HandlerNames.of(handler) == null) {
+            return true;
+        }
+        RequestStatements statements = (RequestStatements) request.getAttribute(STATEMENTS_ATTRIBUTE);
+        if (statements != null) {
+            request.removeAttribute(STATEMENTS_ATTRIBUTE);
+            RequestStatements.resume(statements);
+        } else {
+            RequestStatements.start();
+        }
+        return true;
+    }
+
+    /**
+     * Hands the statements over to the async dispatch of the request, which records them once completed.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        RequestStatements statements = RequestStatements.stop();
+        if (statements != null) {
+            request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        record(request, handler);
+    }
+
+    private void record(HttpServletRequest request, Object handler) {
+        RequestStatements statements = RequestStatements.stop();
+        String handlerName = HandlerNames.of(handler);
+        if (statements == null || handlerName == null) {
+            return;
+        }
+        DistributionSummary.builder(DB_QUERIES)
+                .description("JDBC statements executed per request")
+                .baseUnit("statements")
+                .tag("handler", handlerName)
+                .register(meterRegistry)
+                .record(statements.getCount());
+        Timer.builder(DB_TIME)
+                .description("Time spent in the database per request")
+                .tag("handler", handlerName)
+                .register(meterRegistry)
+                .record(statements.getNanos(), TimeUnit.NANOSECONDS);
+        if (statements.getCount() > sqlLogProperties.getRequestStatementsThreshold()
+                || statements.getNanos() >= sqlLogProperties.getSlowThreshold().toNanos()) {
+            LOGGER.info("{} {} ({}): {} statements, {} ms in the database", request.getMethod(),
+                    request.getRequestURI(), handlerName, statements.getCount(),
+                    TimeUnit.NANOSECONDS.toMillis(statements.getNanos()));
+        } else if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("{} {} ({}): {} statements, {} ms in the database", request.getMethod(),
+                    request.getRequestURI(), handlerName, statements.getCount(),
+                    TimeUnit.NANOSECONDS.toMillis(statements.getNanos()));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bsaoudi.library.metrics;
+
+/**
+ * JDBC statements executed by the request being handled on the current thread: their number and the time spent in
+ * the database executing them. The counting starts with the controller method and stops once the response is
+ * completed, after the async dispatch of an asynchronous one; the statements of other threads (schedulers, streamed
+ * responses) are not counted.
+ */
+public final class RequestStatements {
+
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    private long count;
+
+    private long nanos;
+
+    private RequestStatements() {
+    }
+
+    public static void start() {
+        CURRENT.set(new RequestStatements());
+    }
+
+    static void record(long statementNanos) {
+        RequestStatements statements = CURRENT.get();
+        if (statements != null) {
+            statements.count++;
+            statements.nanos += statementNanos;
+        }
+    }
+
+    /**
+     * Goes on counting on the current thread the statements stopped on another one, for the async dispatch of a
+     * request.
+     *
+     * @param statements
+     */
+    public static void resume(RequestStatements statements) {
+        CURRENT.set(statements);
+    }
+
+    /**
+     * @return the statements counted since the start, null if the counting was not started on this thread
+     */
+    public static RequestStatements stop() {
+        RequestStatements statements = CURRENT.get();
+        CURRENT.remove();
+        return statements;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bsaoudi.library.metrics;
+
+import java.util.Collection;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.bsaoudi.library.common.SliceDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Counts the results returned by the controller methods in library.http.results, tagged with the handler: the
+ * rows of a list or of a slice, one for a single object. The streamed and already serialized responses are not
+ * counted.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class ResultCountAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String RESULTS = "library.http.results";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.getMethod() != null
+                && HandlerNames.of(returnType.getContainingClass(), returnType.getMethod()) != null;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        long results = count(body);
+        if (results > 0) {
+            Counter.builder(RESULTS)
+                    .description("Results returned by the controller methods")
+                    .baseUnit("results")
+                    .tag("handler", HandlerNames.of(returnType.getContainingClass(), returnType.getMethod()))
+                    .register(meterRegistry)
+                    .increment(results);
+        }
+        return body;
+    }
+
+    private static long count(Object body) {
+        if (body == null || body instanceof byte[]) {
+            return 0;
+        }
+        if (body instanceof Collection) {
+            return ((Collection<?>) body).size();
+        }
+        if (body instanceof SliceDTO) {
+            return ((SliceDTO<?>) body).getContent().size();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bsaoudi.library.metrics;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the SQL log, bound from the library.sql.log.* properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "library.sql.log")
+public class SqlLogProperties {
+
+    /**
+     * Execution time of a statement above which it is logged as slow, the reading of its rows excluded.
+     */
+    private Duration slowThreshold = Duration.ofMillis(100);
+
+    /**
+     * Fraction of the other statements logged, from 0 (none) to 1 (all), with the rows read and the time spent
+     * fetching them.
+     */
+    private double sampleRate = 0;
+
+    /**
+     * Number of statements of a single request above which the request is logged, a hint of N+1 selects.
+     */
+    private int requestStatementsThreshold = 30;
+
+    /**
+     * Length above which the logged bind parameters are truncated.
+     */
+    private int maxParameterLength = 100;
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getRequestStatementsThreshold() {
+        return requestStatementsThreshold;
+    }
+
+    public void setRequestStatementsThreshold(int requestStatementsThreshold) {
+        this.requestStatementsThreshold = requestStatementsThreshold;
+    }
+
+    public int getMaxParameterLength() {
+        return maxParameterLength;
+    }
+
+    public void setMaxParameterLength(int maxParameterLength) {
+        this.maxParameterLength = maxParameterLength;
+    }
+}
@@ -0,0 +1,243 @@
+package com.bsaoudi.library.metrics;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.JdbcProxyFactory;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import net.ttddyy.dsproxy.proxy.jdk.JdkJdbcProxyFactory;
+
+/**
+ * Times the execution of each JDBC statement, adds it to the statements of the current request, and logs it with its
+ * bind parameters if it is slow or sampled. The statements are only formatted when they are logged.
+ * <p>
+ * The rows of a query are read after its execution, at the pace of the caller: a streamed response waits for the
+ * client between two rows. The time from the execution to the close of the result set is thus not a time of the
+ * database, and only the execution is compared to the slow threshold. The rows read and the time spent fetching them
+ * (in ResultSet.next only) are logged for the sampled statements: only their result set is proxied, the other ones
+ * are left as they are to keep the reading of their rows free.
+ * <p>
+ * The log category is library.sql: slow statements are logged as warnings, sampled ones as info.
+ */
+public class StatementLogListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("library.sql");
+
+    private static final int MAX_LOGGED_BATCH_SETS = 3;
+
+    /**
+     * Bound of the sampled result sets awaiting their close on a thread: a result set never closed is logged with the
+     * rows read so far once it is exceeded, instead of being kept forever.
+     */
+    private static final int MAX_OPEN_RESULT_SETS = 64;
+
+    private final SqlLogProperties properties;
+
+    private final ThreadLocal<Execution> currentExecution = new ThreadLocal<>();
+
+    private final ThreadLocal<long[]> fetchStart = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final ThreadLocal<Map<ResultSet, Execution>> openResultSets = ThreadLocal.withInitial(IdentityHashMap::new);
+
+    public StatementLogListener(SqlLogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return the factory of the JDBC proxies, proxying the result sets of the sampled statements only
+     */
+    public JdbcProxyFactory jdbcProxyFactory() {
+        return new JdkJdbcProxyFactory() {
+
+            @Override
+            public ResultSet createResultSet(ResultSet resultSet, ConnectionInfo connectionInfo,
+                    ProxyConfig proxyConfig) {
+                Execution execution = currentExecution.get();
+                return execution != null && execution.sampled
+                        ? super.createResultSet(resultSet, connectionInfo, proxyConfig) : resultSet;
+            }
+        };
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        boolean sampled = properties.getSampleRate() > 0 && LOGGER.isInfoEnabled()
+                && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+        currentExecution.set(new Execution(queryInfoList, execInfo.isBatch(), sampled, System.nanoTime()));
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Execution execution = currentExecution.get();
+        currentExecution.remove();
+        if (execution == null) {
+            return;
+        }
+        execution.executionNanos = System.nanoTime() - execution.start;
+        RequestStatements.record(execution.executionNanos);
+        Object result = execInfo.getResult();
+        if (execution.executionNanos >= properties.getSlowThreshold().toNanos()) {
+            execution.rows = result instanceof ResultSet ? -1 : updatedRows(result);
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Slow statement: {}", format(execution));
+            }
+        } else if (execution.sampled) {
+            if (result instanceof ProxyJdbcObject && execInfo.isSuccess()) {
+                Map<ResultSet, Execution> pending = openResultSets.get();
+                if (pending.size() >= MAX_OPEN_RESULT_SETS) {
+                    new ArrayList<>(pending.values()).forEach(this::logSampled);
+                    pending.clear();
+                }
+                // the result set methods are reported on the result set behind its proxy
+                pending.put((ResultSet) ((ProxyJdbcObject) result).getTarget(), execution);
+                return;
+            }
+            execution.rows = updatedRows(result);
+            logSampled(execution);
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet) {
+            fetchStart.get()[0] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Counts the rows read from the sampled result sets and the time spent reading them, and logs their statement
+     * when they are closed.
+     */
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (!(executionContext.getTarget() instanceof ResultSet)) {
+            return;
+        }
+        Map<ResultSet, Execution> pending = openResultSets.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        String method = executionContext.getMethod().getName();
+        if ("next".equals(method)) {
+            Execution execution = pending.get(executionContext.getTarget());
+            if (execution != null) {
+                execution.fetchNanos += System.nanoTime() - fetchStart.get()[0];
+                if (Boolean.TRUE.equals(executionContext.getResult())) {
+                    execution.rows++;
+                }
+            }
+        } else if ("close".equals(method)) {
+            Execution execution = pending.remove(executionContext.getTarget());
+            if (execution != null) {
+                logSampled(execution);
+            }
+        }
+    }
+
+    private void logSampled(Execution execution) {
+        LOGGER.info("Sampled statement: {}", format(execution));
+    }
+
+    private String format(Execution execution) {
+        StringBuilder text = new StringBuilder();
+        text.append(TimeUnit.NANOSECONDS.toMillis(execution.executionNanos)).append(" ms, ");
+        if (execution.fetchNanos > 0) {
+            text.append(TimeUnit.NANOSECONDS.toMillis(execution.fetchNanos)).append(" ms fetching, ");
+        }
+        text.append(execution.rows < 0 ? "?" : String.valueOf(execution.rows)).append(" rows");
+        for (QueryInfo queryInfo : execution.queries) {
+            text.append(", ").append(queryInfo.getQuery());
+            List<List<ParameterSetOperation>> parameterSets = queryInfo.getParametersList();
+            for (int i = 0; i < parameterSets.size() && i < MAX_LOGGED_BATCH_SETS; i++) {
+                text.append(' ').append(format(parameterSets.get(i)));
+            }
+            if (parameterSets.size() > MAX_LOGGED_BATCH_SETS) {
+                text.append(" ... (").append(parameterSets.size()).append(" parameter sets)");
+            }
+        }
+        if (execution.batch) {
+            text.append(" [batch]");
+        }
+        return text.toString();
+    }
+
+    private String format(List<ParameterSetOperation> parameters) {
+        StringBuilder text = new StringBuilder("[");
+        for (ParameterSetOperation parameter : parameters) {
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+            if (ParameterSetOperation.isSetNullParameterOperation(parameter)) {
+                text.append("NULL");
+                continue;
+            }
+            String value = String.valueOf(parameter.getArgs().length > 1 ? parameter.getArgs()[1] : null);
+            if (value.length() > properties.getMaxParameterLength()) {
+                value = value.substring(0, properties.getMaxParameterLength()) + "...";
+            }
+            text.append(value);
+        }
+        return text.append(']').toString();
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                if (count == Statement.SUCCESS_NO_INFO || count == Statement.EXECUTE_FAILED) {
+                    return -1;
+                }
+                rows += count;
+            }
+            return rows;
+        }
+        return -1;
+    }
+
+    /**
+     * A statement being executed, until the results of a sampled one are read.
+     */
+    private static final class Execution {
+
+        private final List<QueryInfo> queries;
+
+        private final boolean batch;
+
+        private final boolean sampled;
+
+        private final long start;
+
+        private long executionNanos;
+
+        private long fetchNanos;
+
+        private long rows;
+
+        private Execution(List<QueryInfo> queries, boolean batch, boolean sampled, long start) {
+            this.queries = queries;
+            this.batch = batch;
+            this.sampled = sampled;
+            this.start = start;
+        }
+    }
+}
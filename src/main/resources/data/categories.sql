@@ -1,14 +1,14 @@
-INSERT INTO category VALUES ('INF', 'Informatique');
-INSERT INTO category VALUES ('MAT', 'Mathématique, Physiques et Chimie');
-INSERT INTO category VALUES ('ALB', 'Albums');
-INSERT INTO category VALUES ('BDE', 'Bandes dessinées');
-INSERT INTO category VALUES ('CON', 'Contes');
-INSERT INTO category VALUES ('POE', 'Poésie');
-INSERT INTO category VALUES ('ROM', 'Romans et récits illustrés');
-INSERT INTO category VALUES ('THE', 'Théatre');
-INSERT INTO category VALUES ('PHI', 'Philosophie');
-INSERT INTO category VALUES ('SCI', 'Sciences de la vie et de la terre');
-INSERT INTO category VALUES ('POL', 'Politique');
-INSERT INTO category VALUES ('SOC', 'Sociologie');
-INSERT INTO category VALUES ('ECO', 'Economie et Finance');
-INSERT INTO category VALUES ('JOU', 'Journal, Magazine');
\ No newline at end of file
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('INF', 'Informatique', 'informatique');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('MAT', 'Mathématique, Physiques et Chimie', 'mathematique, physiques et chimie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('ALB', 'Albums', 'albums');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('BDE', 'Bandes dessinées', 'bandes dessinees');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('CON', 'Contes', 'contes');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('POE', 'Poésie', 'poesie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('ROM', 'Romans et récits illustrés', 'romans et recits illustres');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('THE', 'Théatre', 'theatre');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('PHI', 'Philosophie', 'philosophie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('SCI', 'Sciences de la vie et de la terre', 'sciences de la vie et de la terre');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('POL', 'Politique', 'politique');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('SOC', 'Sociologie', 'sociologie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('ECO', 'Economie et Finance', 'economie et finance');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('JOU', 'Journal, Magazine', 'journal, magazine');
\ No newline at end of file
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS REPLICATION_HEARTBEAT (ID INT NOT NULL, BEAT BIGINT NOT NULL, PRIMARY KEY (ID));
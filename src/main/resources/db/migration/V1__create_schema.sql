@@ -0,0 +1,81 @@
+-- The schema of the entities, as Hibernate generated it with ddl-auto=create-drop.
+-- The ids are taken from the sequences by blocks of 50, the allocationSize of the entities.
+
+CREATE SEQUENCE BOOK_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE CUSTOMER_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE MAIL_OUTBOX_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE CATEGORY (
+    CODE VARCHAR(255) NOT NULL,
+    LABEL VARCHAR(255) NOT NULL,
+    LABEL_KEY VARCHAR(255),
+    PRIMARY KEY (CODE)
+);
+
+CREATE TABLE BOOK (
+    BOOK_ID INTEGER NOT NULL,
+    AUTHOR VARCHAR(255),
+    AUTHOR_KEY VARCHAR(255),
+    AVAILABLE_EXAMPLARIES INTEGER,
+    ISBN VARCHAR(255) NOT NULL,
+    REGISTER_DATE DATE NOT NULL,
+    RELEASE_DATE DATE NOT NULL,
+    TITLE VARCHAR(255) NOT NULL,
+    TITLE_KEY VARCHAR(255),
+    TOTAL_EXAMPLARIES INTEGER,
+    CAT_CODE VARCHAR(255) NOT NULL,
+    PRIMARY KEY (BOOK_ID),
+    CONSTRAINT UK_BOOK_ISBN UNIQUE (ISBN),
+    CONSTRAINT FK_BOOK_CATEGORY FOREIGN KEY (CAT_CODE) REFERENCES CATEGORY
+);
+
+CREATE TABLE CUSTOMER (
+    CUSTOMER_ID INTEGER NOT NULL,
+    ADDRESS VARCHAR(255),
+    CREATION_DATE DATE NOT NULL,
+    EMAIL VARCHAR(255) NOT NULL,
+    FIRST_NAME VARCHAR(255) NOT NULL,
+    JOB VARCHAR(255),
+    LAST_NAME VARCHAR(255) NOT NULL,
+    LAST_NAME_KEY VARCHAR(255),
+    EMAIL_KEY VARCHAR(255),
+    PRIMARY KEY (CUSTOMER_ID),
+    CONSTRAINT UK_CUSTOMER_EMAIL UNIQUE (EMAIL)
+);
+
+CREATE INDEX IDX_CUSTOMER_LAST_NAME_KEY ON CUSTOMER (LAST_NAME_KEY);
+
+CREATE INDEX IDX_CUSTOMER_EMAIL_KEY ON CUSTOMER (EMAIL_KEY);
+
+CREATE TABLE LOAN (
+    CREATION_DATE_TIME TIMESTAMP NOT NULL,
+    BEGIN_DATE DATE NOT NULL,
+    END_DATE DATE NOT NULL,
+    STATUS VARCHAR(255),
+    CUSTOMER_ID INTEGER NOT NULL,
+    BOOK_ID INTEGER NOT NULL,
+    PRIMARY KEY (BOOK_ID, CREATION_DATE_TIME, CUSTOMER_ID),
+    CONSTRAINT FK_LOAN_CUSTOMER FOREIGN KEY (CUSTOMER_ID) REFERENCES CUSTOMER,
+    CONSTRAINT FK_LOAN_BOOK FOREIGN KEY (BOOK_ID) REFERENCES BOOK
+);
+
+CREATE INDEX IDX_LOAN_END_DATE_KEY ON LOAN (END_DATE, CREATION_DATE_TIME, BOOK_ID, CUSTOMER_ID);
+
+CREATE INDEX IDX_LOAN_CUSTOMER_STATUS_KEY ON LOAN (CUSTOMER_ID, STATUS, CREATION_DATE_TIME, BOOK_ID);
+
+CREATE TABLE MAIL_OUTBOX (
+    MAIL_ID INTEGER NOT NULL,
+    ATTEMPTS INTEGER NOT NULL,
+    CONTENT CLOB,
+    CREATION_DATE_TIME TIMESTAMP NOT NULL,
+    LAST_ERROR VARCHAR(1000),
+    NEXT_ATTEMPT_AT TIMESTAMP NOT NULL,
+    RECIPIENT VARCHAR(255) NOT NULL,
+    SENDER VARCHAR(255) NOT NULL,
+    SENT_DATE_TIME TIMESTAMP,
+    STATUS VARCHAR(255) NOT NULL,
+    SUBJECT VARCHAR(255),
+    PRIMARY KEY (MAIL_ID)
+);
+
+CREATE INDEX IDX_MAIL_OUTBOX_DUE ON MAIL_OUTBOX (STATUS, NEXT_ATTEMPT_AT);
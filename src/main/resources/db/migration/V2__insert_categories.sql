@@ -0,0 +1,16 @@
+-- The categories, also loaded by data/categories.sql when the schema is generated by Hibernate.
+
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('INF', 'Informatique', 'informatique');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('MAT', 'Mathématique, Physiques et Chimie', 'mathematique, physiques et chimie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('ALB', 'Albums', 'albums');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('BDE', 'Bandes dessinées', 'bandes dessinees');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('CON', 'Contes', 'contes');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('POE', 'Poésie', 'poesie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('ROM', 'Romans et récits illustrés', 'romans et recits illustres');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('THE', 'Théatre', 'theatre');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('PHI', 'Philosophie', 'philosophie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('SCI', 'Sciences de la vie et de la terre', 'sciences de la vie et de la terre');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('POL', 'Politique', 'politique');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('SOC', 'Sociologie', 'sociologie');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('ECO', 'Economie et Finance', 'economie et finance');
+INSERT INTO category (CODE, LABEL, LABEL_KEY) VALUES ('JOU', 'Journal, Magazine', 'journal, magazine');
@@ -0,0 +1,9 @@
+-- The heartbeat written on the primary and read back on the replicas (ReplicaSet), also created by
+-- data/replication-heartbeat.sql when the schema is generated by Hibernate. The table may already exist on the
+-- databases where the application created it itself at startup, before this migration.
+
+CREATE TABLE IF NOT EXISTS REPLICATION_HEARTBEAT (
+    ID INT NOT NULL,
+    BEAT BIGINT NOT NULL,
+    PRIMARY KEY (ID)
+);
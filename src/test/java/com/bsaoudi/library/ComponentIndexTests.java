@@ -0,0 +1,81 @@
+package com.bsaoudi.library;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.stereotype.Component;
+
+import com.bsaoudi.library.common.StaticSwaggerResourcesController;
+
+import springfox.documentation.spring.web.plugins.Docket;
+
+/**
+ * The prod start, reading the components from their index (META-INF/spring.components) instead of scanning the
+ * classpath.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:component-index",
+        "spring.jpa.show-sql=false",
+        "library.api-docs.static=true"})
+class ComponentIndexTests {
+
+    private static final String BASE_PACKAGE = "com.bsaoudi.library";
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void indexesAllTheComponentsOfTheApplication() throws IOException {
+        assertFalse(SpringProperties.getFlag(CandidateComponentsIndexLoader.IGNORE_INDEX), "the index is ignored");
+        CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(getClass().getClassLoader());
+        assertNotNull(index, "no index on the classpath");
+
+        Set<String> indexed = new TreeSet<>(index.getCandidateTypes(BASE_PACKAGE, Component.class.getName()));
+        assertEquals(scannedComponents(), indexed);
+    }
+
+    @Test
+    void startsWithoutSpringfox() {
+        assertEquals(1, context.getBeanNamesForType(StaticSwaggerResourcesController.class).length);
+        assertEquals(0, context.getBeanNamesForType(Docket.class).length);
+    }
+
+    /**
+     * @return the components found by scanning the classes of the application, the way Spring does without index
+     */
+    private static Set<String> scannedComponents() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resolver);
+        Set<String> components = new TreeSet<>();
+        for (Resource resource : resolver.getResources("classpath*:" + BASE_PACKAGE.replace('.', '/') + "/**/*.class")) {
+            if (resource.getURL().getPath().contains("/test-classes/")) {
+                continue;
+            }
+            AnnotationMetadata metadata = metadataReaderFactory.getMetadataReader(resource).getAnnotationMetadata();
+            if (metadata.isIndependent() && metadata.hasMetaAnnotation(Component.class.getName())
+                    || metadata.hasAnnotation(Component.class.getName())) {
+                components.add(metadata.getClassName());
+            }
+        }
+        assertTrue(components.size() > 10, components.toString());
+        return components;
+    }
+}
@@ -0,0 +1,127 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bsaoudi.library.category.Category;
+
+/**
+ * The available examplaries updated by JDBC, and the books of the second-level cache: a book loaded while an update
+ * is not committed is not cached, and the updated book is cached again once committed.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:book-cache", "spring.jpa.show-sql=false"})
+class BookExamplariesCacheTests {
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void doesNotCacheTheExamplariesReadBeforeTheCommit() {
+        Integer bookId = bookService.saveBook(book("cache-1", 3)).getId();
+        assertEquals(3, availableExamplaries(bookId));
+        CacheRegionStatistics region = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics("book");
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            entityManagerFactory.getCache().evict(Book.class, bookId);
+            long putsBefore = region.getPutCount();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                bookService.reserveExamplary(bookId);
+                // another request reads the book before the commit
+                assertEquals(3, get(reader, () -> availableExamplaries(bookId)));
+            });
+            assertEquals(putsBefore, region.getPutCount(), "the previous examplaries are not cached");
+
+            assertEquals(2, availableExamplaries(bookId));
+            long hitsBefore = region.getHitCount();
+            assertEquals(2, availableExamplaries(bookId));
+            assertEquals(hitsBefore + 1, region.getHitCount(), "cached again once committed");
+        } finally {
+            reader.shutdown();
+        }
+    }
+
+    @Test
+    void returnsTheAvailableExamplariesOfTheUpdatedBook() {
+        Book book = bookService.saveBook(book("cache-2", 3));
+        bookService.reserveExamplary(book.getId());
+        Book request = book("cache-2", 5);
+        request.setId(book.getId());
+
+        Book updated = bookService.updateBook(request);
+
+        assertEquals(4, updated.getAvailableExamplaries().intValue());
+        assertEquals(4, availableExamplaries(book.getId()));
+    }
+
+    @Test
+    void refusesATotalLowerThanTheExamplariesOnLoan() {
+        Book book = bookService.saveBook(book("cache-3", 3));
+        bookService.reserveExamplary(book.getId());
+        bookService.reserveExamplary(book.getId());
+        Book request = book("cache-3", 1);
+        request.setId(book.getId());
+
+        assertThrows(ExamplariesOnLoanException.class, () -> bookService.updateBook(request));
+
+        assertEquals(1, availableExamplaries(book.getId()));
+        request.setTotalExamplaries(2);
+        assertEquals(0, bookService.updateBook(request).getAvailableExamplaries().intValue());
+    }
+
+    private int availableExamplaries(Integer bookId) {
+        return withEntityManager(entityManager -> entityManager.find(Book.class, bookId).getAvailableExamplaries());
+    }
+
+    private <T> T withEntityManager(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static <T> T get(ExecutorService executor, Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Book book(String isbn, int examplaries) {
+        Book book = new Book();
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setIsbn(isbn);
+        book.setReleaseDate(LocalDate.of(2020, 1, 1));
+        book.setRegisterDate(LocalDate.now());
+        book.setTotalExamplaries(examplaries);
+        book.setCategory(new Category("ROM", ""));
+        return book;
+    }
+}
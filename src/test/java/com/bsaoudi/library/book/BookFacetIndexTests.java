@@ -0,0 +1,111 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.bsaoudi.library.category.Category;
+
+/**
+ * Filters and facet counts of the catalog, and the document numbers reused by the book updates.
+ */
+class BookFacetIndexTests {
+
+    private final BookFacetIndex index = new BookFacetIndex();
+
+    @Test
+    void countsTheFacetsOfTheMatchingBooks() {
+        index.rebuild(Arrays.asList(book(1, "ROM", 1862, "Victor Hugo"), book(2, "ROM", 1831, "Victor Hugo"),
+                book(3, "POE", 1857, "Charles Baudelaire"), book(4, "ROM", 1857, "Gustave Flaubert")));
+
+        BookFacetedSearch all = index.search(null, null, null, null, 10);
+        assertArrayEquals(new int[] {1, 2, 3, 4}, all.getBookIds());
+        assertEquals(map("ROM", 3, "POE", 1), all.getCategoryCounts());
+        assertEquals(map(1862, 1, 1857, 2, 1831, 1), all.getReleaseYearCounts());
+        assertEquals(map("Victor Hugo", 2, "Charles Baudelaire", 1, "Gustave Flaubert", 1), all.getAuthorCounts());
+
+        BookFacetedSearch filtered = index.search(new int[] {2, 3, 4}, null, "ROM", null, 1);
+        assertEquals(2, filtered.getTotalBooks());
+        assertEquals(1, filtered.getBookIds().length, "the ids are limited, not the counts");
+        assertEquals(map("ROM", 2), filtered.getCategoryCounts());
+        assertEquals(map(1857, 1, 1831, 1), filtered.getReleaseYearCounts());
+
+        BookFacetedSearch byAuthor = index.search(null, "VICTOR HUGO", null, 1862, 10);
+        assertArrayEquals(new int[] {1}, byAuthor.getBookIds());
+        assertEquals(map("Victor Hugo", 1), byAuthor.getAuthorCounts());
+        assertEquals(0, index.search(null, "Zola", null, null, 10).getTotalBooks());
+    }
+
+    @Test
+    void reusesTheNumbersOfTheRemovedBooksAndAuthors() {
+        List<Book> books = new ArrayList<>();
+        for (int id = 1; id <= 3000; id++) {
+            books.add(book(id, "ROM", 2000, "Author " + id));
+        }
+        index.rebuild(books);
+
+        for (int id = 1; id <= 3000; id++) {
+            index.remove(id);
+            index.index(book(id + 3000, "POE", 2001, "Poet " + (id % 7)));
+        }
+        index.index(book(6000, "ROM", 2002, "Poet 1"));
+
+        BookFacetedSearch all = index.search(null, null, null, null, 3);
+        assertEquals(3000, all.getTotalBooks());
+        assertArrayEquals(new int[] {3001, 3002, 3003}, all.getBookIds());
+        assertEquals(map("POE", 2999, "ROM", 1), all.getCategoryCounts());
+        assertEquals(map(2002, 1, 2001, 2999), all.getReleaseYearCounts());
+        assertEquals(7, all.getAuthorCounts().size());
+        assertEquals(Integer.valueOf(430), all.getAuthorCounts().get("Poet 1"));
+        assertEquals(0, index.search(null, "Author 12", null, null, 10).getTotalBooks());
+    }
+
+    @Test
+    void leavesTheBooksWithoutReleaseDateOutOfTheYearFacet() {
+        Book undated = book(2, "ROM", 2000, "Victor Hugo");
+        undated.setReleaseDate(null);
+        index.rebuild(Arrays.asList(book(1, "ROM", 1862, "Victor Hugo"), undated));
+
+        BookFacetedSearch all = index.search(null, null, null, null, 10);
+        assertEquals(2, all.getTotalBooks());
+        assertEquals(map(1862, 1), all.getReleaseYearCounts());
+        assertEquals(0, index.search(null, null, null, 0, 10).getTotalBooks());
+    }
+
+    @Test
+    void returnsTheLowestBookIdsWhateverTheirDocumentNumbers() {
+        index.rebuild(Arrays.asList(book(1, "ROM", 2000, "A"), book(2, "ROM", 2000, "B"), book(3, "ROM", 2000, "C")));
+        index.remove(1);
+        // gets the number of the removed book, the lowest one
+        index.index(book(9, "ROM", 2000, "D"));
+
+        assertArrayEquals(new int[] {2, 3}, index.search(null, null, null, null, 2).getBookIds());
+    }
+
+    private static Book book(int id, String categoryCode, int releaseYear, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setAuthor(author);
+        book.setCategory(new Category(categoryCode, categoryCode));
+        book.setReleaseDate(LocalDate.of(releaseYear, 1, 1));
+        return book;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Map<K, Integer> map(Object... entries) {
+        Map<K, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            map.put((K) entries[i], (Integer) entries[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.bsaoudi.library.category.CategoryDTO;
+
+/**
+ * Import of a file which cannot be read to the end: the rows read before the failure are imported and counted.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:import", "spring.jpa.show-sql=false"})
+class BookImportServiceTests {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Test
+    void importsTheRowsReadBeforeAFailure() {
+        int readable = BookImportService.CHUNK_SIZE + 3;
+        Iterator<BookImportRow> rows = new Iterator<BookImportRow>() {
+
+            private int line = 1;
+
+            @Override
+            public boolean hasNext() {
+                if (line > readable) {
+                    throw new UncheckedIOException(new IOException("Connection reset"));
+                }
+                return true;
+            }
+
+            @Override
+            public BookImportRow next() {
+                line++;
+                return BookImportRow.of(line, book("failure-" + line));
+            }
+        };
+        List<BookImportProgressDTO> progress = new ArrayList<>();
+
+        bookImportService.importBooks(rows, progress::add);
+
+        BookImportProgressDTO last = progress.get(progress.size() - 1);
+        assertTrue(last.isDone());
+        assertEquals("java.io.IOException: Connection reset", last.getFailure());
+        assertEquals(readable, last.getRead());
+        assertEquals(readable, last.getImported());
+        assertEquals(3, progress.size(), "one report per chunk, then the final one");
+        assertNotNull(bookService.findBookByIsbn("failure-" + (readable + 1)));
+    }
+
+    private static BookDTO book(String isbn) {
+        BookDTO book = new BookDTO();
+        book.setIsbn(isbn);
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setReleaseDate(LocalDate.of(2020, 1, 1));
+        book.setCategory(new CategoryDTO("ROM", ""));
+        return book;
+    }
+}
@@ -0,0 +1,99 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ranking of the title and author completions, and the trie kept up to date by the loans and the book updates.
+ */
+class BookSuggesterTests {
+
+    private final BookSuggester suggester = new BookSuggester();
+
+    @Test
+    void ranksTheCompletionsByLoansThenAlphabetically() {
+        Map<Integer, Integer> loans = new HashMap<>();
+        loans.put(1, 5);
+        loans.put(2, 10);
+        loans.put(4, 2);
+        suggester.loadLoanCounts(loans);
+        suggester.rebuild(Arrays.asList(book(1, "Le Petit Prince", "Saint-Exupéry"), book(2, "Le Père Goriot", "Balzac"),
+                book(3, "Les Misérables", "Hugo"), book(4, "Bel-Ami", "Maupassant"), book(5, "Le Horla", "Maupassant")));
+
+        assertEquals(Arrays.asList("Le Père Goriot", "Le Petit Prince", "Le Horla", "Les Misérables"), values("le", 10));
+        assertEquals(Arrays.asList("Le Père Goriot", "Le Petit Prince"), values("le", 2));
+        // titles and authors are merged on the same ranking
+        assertEquals(Arrays.asList("Balzac", "Bel-Ami"), values("b", 10));
+        assertEquals(Arrays.asList(BookSuggestionDTO.Type.AUTHOR, BookSuggestionDTO.Type.TITLE),
+                suggester.suggest("b", 10).stream().map(BookSuggestionDTO::getType).collect(Collectors.toList()));
+        // one completion for the two books of the same author, weighted by the loans of both
+        assertEquals(Arrays.asList("Maupassant"), values("mau", 10));
+        assertEquals(Collections.emptyList(), values("zola", 10));
+    }
+
+    @Test
+    void ignoresTheCaseAndTheAccentsOfThePrefix() {
+        suggester.rebuild(Arrays.asList(book(1, "Émile ou De l'éducation", "Rousseau"), book(2, "Le Père Goriot", "Balzac")));
+
+        assertEquals(Arrays.asList("Émile ou De l'éducation"), values("EMI", 10));
+        assertEquals(Arrays.asList("Émile ou De l'éducation"), values("émile ou", 10));
+        assertEquals(Arrays.asList("Le Père Goriot"), values("LE PÈ", 10));
+        assertEquals(Collections.emptyList(), values("le pa", 10));
+    }
+
+    @Test
+    void followsTheLoansAndTheBookUpdates() {
+        suggester.rebuild(Arrays.asList(book(1, "Candide", "Voltaire"), book(2, "Carmen", "Mérimée"),
+                book(3, "Carmen", "Mérimée")));
+        assertEquals(Arrays.asList("Candide", "Carmen"), values("ca", 10));
+
+        suggester.recordLoan(2);
+        assertEquals(Arrays.asList("Carmen", "Candide"), values("ca", 10));
+
+        suggester.index(book(1, "Zadig", "Voltaire"));
+        assertEquals(Arrays.asList("Carmen"), values("ca", 10));
+        assertEquals(Arrays.asList("Zadig"), values("z", 10));
+
+        suggester.remove(2);
+        assertEquals(Arrays.asList("Carmen"), values("car", 10), "still the title of the third book");
+        suggester.remove(3);
+        assertEquals(Collections.emptyList(), values("c", 10));
+        assertEquals(Arrays.asList("Voltaire"), values("v", 10));
+    }
+
+    @Test
+    void keepsTheKeysSharingAPrefixAfterSplitsAndRemovals() {
+        suggester.rebuild(Arrays.asList(book(1, "abcd", null), book(2, "abce", null), book(3, "ab", null)));
+        assertEquals(Arrays.asList("ab", "abcd", "abce"), values("ab", 10));
+
+        suggester.remove(3);
+        suggester.remove(2);
+        assertEquals(Arrays.asList("abcd"), values("a", 10));
+        assertEquals(Arrays.asList("abcd"), values("abc", 10));
+
+        suggester.index(book(4, "abx", null));
+        assertEquals(Arrays.asList("abcd", "abx"), values("ab", 10));
+        assertEquals(Arrays.asList("abx"), values("abx", 10));
+        assertEquals(Collections.emptyList(), values("abcde", 10));
+    }
+
+    private List<String> values(String prefix, int limit) {
+        return suggester.suggest(prefix, limit).stream().map(BookSuggestionDTO::getValue).collect(Collectors.toList());
+    }
+
+    private static Book book(int id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+}
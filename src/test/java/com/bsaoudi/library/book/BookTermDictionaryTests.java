@@ -0,0 +1,71 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Typo tolerant search of the books by the words of their title and author.
+ */
+class BookTermDictionaryTests {
+
+    private final BookTermDictionary dictionary = new BookTermDictionary();
+
+    @BeforeEach
+    void indexBooks() {
+        dictionary.rebuild(Arrays.asList(book(1, "Le Rouge et le Noir", "Stendhal"), book(2, "Notre-Dame de Paris", "Hugo"),
+                book(3, "Les Misérables", "Hugo"), book(4, "Le Horla", "Maupassant"), book(5, "Bouge", "Anonyme")));
+    }
+
+    @Test
+    void toleratesUpToTwoEditsOnLongWords() {
+        assertArrayEquals(new int[] {1}, dictionary.fuzzySearch("stendal", 2));
+        assertArrayEquals(new int[] {1}, dictionary.fuzzySearch("STANDAL", 2));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("standal", 1), "two edits are more than allowed");
+        // the transposition of "miserables" is two edits
+        assertArrayEquals(new int[] {3}, dictionary.fuzzySearch("miserbales", 2));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("miserbales", 1));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("maupasant", 0));
+        assertArrayEquals(new int[] {4}, dictionary.fuzzySearch("maupasant", 1));
+    }
+
+    @Test
+    void limitsTheEditsOfShortWords() {
+        assertArrayEquals(new int[] {2, 3}, dictionary.fuzzySearch("hugi", 2), "one edit up to 5 characters");
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("hagi", 2));
+        assertArrayEquals(new int[] {1, 4}, dictionary.fuzzySearch("le", 2), "no edit up to 2 characters");
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("la", 2));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("", 2));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch(" - ", 2));
+    }
+
+    @Test
+    void matchesEveryWordOfTheQueryClosestFirst() {
+        assertArrayEquals(new int[] {2}, dictionary.fuzzySearch("notre pari", 2));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("noir hugo", 2));
+        assertArrayEquals(new int[] {1, 5}, dictionary.fuzzySearch("rouge", 2));
+        assertArrayEquals(new int[] {5, 1}, dictionary.fuzzySearch("bouge", 2));
+    }
+
+    @Test
+    void followsTheBookUpdates() {
+        dictionary.index(book(5, "Nana", "Zola"));
+        dictionary.remove(2);
+
+        assertArrayEquals(new int[] {1}, dictionary.fuzzySearch("rouge", 2));
+        assertArrayEquals(new int[] {5}, dictionary.fuzzySearch("zola", 2));
+        assertArrayEquals(new int[] {3}, dictionary.fuzzySearch("hugo", 2));
+        assertArrayEquals(new int[0], dictionary.fuzzySearch("notre", 2));
+    }
+
+    private static Book book(int id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+}
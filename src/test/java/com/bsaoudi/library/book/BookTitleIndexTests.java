@@ -0,0 +1,86 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bsaoudi.library.common.TransactionHooks;
+
+/**
+ * Substring searches of the trigram title index, and its updates applied once their transaction is committed.
+ */
+class BookTitleIndexTests {
+
+    private final BookTitleIndex index = new BookTitleIndex();
+
+    @Test
+    void findsTheTitlesContainingAllTheTrigramsContiguously() {
+        index.rebuild(Arrays.asList(book(1, "Le Théâtre de Molière"), book(2, "Théorie des ensembles"),
+                book(3, "L'Été à Paris"), book(4, "Atre et reth")));
+
+        assertArrayEquals(new int[] {1}, index.search("THEATRE"));
+        assertArrayEquals(new int[] {1, 2}, index.search("thé"));
+        assertArrayEquals(new int[] {3}, index.search("ete a"));
+        // "atre" and "the" are both in the 4th title, but not "theatre"
+        assertArrayEquals(new int[0], index.search("theatre et"));
+        assertArrayEquals(new int[0], index.search("xyz"));
+    }
+
+    @Test
+    void scansTheTitlesForTermsShorterThanATrigram() {
+        index.rebuild(Arrays.asList(book(3, "Le Rouge et le Noir"), book(1, "Les Misérables"), book(2, "Candide")));
+
+        assertArrayEquals(new int[] {1, 3}, index.search("LE"));
+        assertArrayEquals(new int[] {1}, index.search("SÉ"));
+        assertArrayEquals(new int[] {1, 2, 3}, index.search(""));
+        assertArrayEquals(new int[0], index.search("zz"));
+    }
+
+    @Test
+    void replacesAndRemovesTheIndexedTitles() {
+        index.rebuild(Arrays.asList(book(1, "Germinal"), book(2, "Nana")));
+
+        index.index(book(1, "Au Bonheur des Dames"));
+        index.remove(2);
+
+        assertArrayEquals(new int[0], index.search("germ"));
+        assertArrayEquals(new int[0], index.search("nana"));
+        assertArrayEquals(new int[] {1}, index.search("bonheur"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void appliesTheUpdatesOnlyOnceCommitted() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:title-index", "sa", "");
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        index.rebuild(Arrays.asList(book(1, "Germinal")));
+
+        transaction.executeWithoutResult(status -> {
+            TransactionHooks.afterCommit(() -> index.index(book(2, "La Bête humaine")));
+            TransactionHooks.afterCommit(() -> index.remove(1));
+            assertArrayEquals(new int[0], index.search("bete"), "not indexed before the commit");
+            assertArrayEquals(new int[] {1}, index.search("germinal"), "not removed before the commit");
+        });
+        assertArrayEquals(new int[] {2}, index.search("bete"));
+        assertArrayEquals(new int[0], index.search("germinal"));
+
+        transaction.executeWithoutResult(status -> {
+            TransactionHooks.afterCommit(() -> index.index(book(3, "L'Assommoir")));
+            status.setRollbackOnly();
+        });
+        assertArrayEquals(new int[0], index.search("assommoir"), "a rolled back update is never applied");
+    }
+
+    private static Book book(int id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        return book;
+    }
+}
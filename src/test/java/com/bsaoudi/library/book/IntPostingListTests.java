@@ -0,0 +1,60 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sorted insertions and removals of the posting lists, and their galloping intersection.
+ */
+class IntPostingListTests {
+
+    @Test
+    void keepsTheIdsSortedAndDistinct() {
+        IntPostingList list = listOf(10, 2, 7, 2, 30, 1, 7);
+
+        assertArrayEquals(new int[] {1, 2, 7, 10, 30}, list.toArray());
+        assertFalse(list.add(10), "an id already present is not added twice");
+        assertTrue(list.remove(7));
+        assertFalse(list.remove(7), "an id already removed is not found");
+        assertFalse(list.contains(7));
+        assertArrayEquals(new int[] {1, 2, 10, 30}, list.toArray());
+    }
+
+    @Test
+    void retainsTheCandidatesPresentInTheList() {
+        IntPostingList list = new IntPostingList();
+        for (int id = 0; id < 1000; id += 3) {
+            list.add(id);
+        }
+        int[] candidates = {0, 1, 3, 4, 300, 301, 600, 998, 999, 1200};
+
+        int count = list.retainInto(candidates, candidates.length);
+
+        assertEquals(5, count);
+        assertArrayEquals(new int[] {0, 3, 300, 600, 999}, Arrays.copyOf(candidates, count));
+    }
+
+    @Test
+    void onlyLooksAtTheFirstCandidates() {
+        IntPostingList list = listOf(1, 2, 3, 4);
+        int[] candidates = {2, 4, 3};
+
+        assertEquals(1, list.retainInto(candidates, 1));
+        assertEquals(0, new IntPostingList().retainInto(candidates, candidates.length));
+        assertEquals(0, list.retainInto(new int[] {5, 6}, 2));
+    }
+
+    private static IntPostingList listOf(int... ids) {
+        IntPostingList list = new IntPostingList();
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
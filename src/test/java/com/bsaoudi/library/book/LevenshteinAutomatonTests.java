@@ -0,0 +1,73 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Edit distances computed by the automaton, bounded by its maximum number of edits.
+ */
+class LevenshteinAutomatonTests {
+
+    @Test
+    void acceptsTheWordsWithinOneEdit() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("livre", 1);
+
+        assertEquals(0, distance(automaton, "livre"));
+        assertEquals(1, distance(automaton, "livres"), "insertion");
+        assertEquals(1, distance(automaton, "live"), "deletion");
+        assertEquals(1, distance(automaton, "libre"), "substitution");
+        // a transposition counts as two edits
+        assertFalse(automaton.isMatch(run(automaton, "lvire")));
+        assertEquals(2, distance(automaton, "ivres"), "the distance is capped at maxEdits + 1");
+    }
+
+    @Test
+    void acceptsTheWordsWithinTwoEdits() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("livre", 2);
+
+        assertEquals(2, distance(automaton, "lvire"), "transposition");
+        assertEquals(2, distance(automaton, "lires"));
+        assertEquals(2, distance(automaton, "ivr"));
+        assertFalse(automaton.isMatch(run(automaton, "vrel")));
+        assertEquals(3, distance(automaton, "cadre"));
+    }
+
+    @Test
+    void stopsAsSoonAsNoContinuationCanMatch() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("livre", 1);
+
+        assertTrue(automaton.canMatch(run(automaton, "x")));
+        assertFalse(automaton.canMatch(run(automaton, "xy")));
+        assertTrue(automaton.canMatch(run(automaton, "liv")), "a prefix of the word is not a match but can become one");
+        assertFalse(automaton.isMatch(run(automaton, "liv")));
+    }
+
+    @Test
+    void handlesEmptyAndShortWords() {
+        LevenshteinAutomaton empty = new LevenshteinAutomaton("", 1);
+        assertTrue(empty.isMatch(empty.start()));
+        assertEquals(1, distance(empty, "a"));
+        assertFalse(empty.canMatch(run(empty, "ab")));
+
+        LevenshteinAutomaton exact = new LevenshteinAutomaton("le", 0);
+        assertTrue(exact.isMatch(run(exact, "le")));
+        assertFalse(exact.isMatch(run(exact, "la")));
+        assertFalse(exact.isMatch(run(exact, "les")));
+        assertFalse(exact.isMatch(run(exact, "")));
+    }
+
+    private static int distance(LevenshteinAutomaton automaton, String input) {
+        return automaton.distance(run(automaton, input));
+    }
+
+    private static int[] run(LevenshteinAutomaton automaton, String input) {
+        int[] state = automaton.start();
+        for (int i = 0; i < input.length(); i++) {
+            state = automaton.step(state, input.charAt(i));
+        }
+        return state;
+    }
+}
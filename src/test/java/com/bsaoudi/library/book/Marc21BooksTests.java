@@ -0,0 +1,90 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Decoding of the ISO 2709 records, and mapping of their fields and Dewey classes onto the books.
+ */
+class Marc21BooksTests {
+
+    @Test
+    void mapsTheFieldsOfARecord() {
+        byte[] record = new Marc21RecordBuilder()
+                .controlField("001", "ocm0001")
+                .controlField("008", "850101s1857    fr            000 1 fre d")
+                .dataField("020", "a", "978-2-07-036822-8 (pbk.)")
+                .dataField("082", "a", "843.8")
+                .dataField("100", "a", "Flaubert, Gustave,", "d", "1821-1880.")
+                .dataField("245", "a", "Madame Bovary :", "b", "mœurs de province /", "c", "Gustave Flaubert.")
+                .dataField("260", "a", "Paris :", "b", "Lévy,", "c", "c1857.")
+                .build();
+
+        BookDTO book = Marc21Books.toBookDTO(Marc21Record.parse(record), null);
+
+        assertEquals("9782070368228", book.getIsbn());
+        assertEquals("Flaubert, Gustave", book.getAuthor());
+        assertEquals("Madame Bovary : mœurs de province", book.getTitle());
+        assertEquals(LocalDate.of(1857, 1, 1), book.getReleaseDate());
+        assertEquals("ROM", book.getCategory().getCode());
+    }
+
+    @Test
+    void fallsBackOnTheFixedLengthDataAndTheDefaultCategory() {
+        byte[] record = new Marc21RecordBuilder()
+                .controlField("008", "990101s1999    fr            000 0 fre d")
+                .dataField("245", "a", "Sans date ni classe.")
+                .dataField("082", "a", "910")
+                .build();
+
+        BookDTO book = Marc21Books.toBookDTO(Marc21Record.parse(record), "SOC");
+
+        assertEquals(LocalDate.of(1999, 1, 1), book.getReleaseDate());
+        assertEquals("SOC", book.getCategory().getCode());
+        assertNull(book.getIsbn());
+        assertNull(book.getAuthor());
+        assertNull(Marc21Books.toBookDTO(Marc21Record.parse(record), null).getCategory());
+    }
+
+    @Test
+    void mapsTheDeweyClassesOnTheCategories() {
+        assertEquals("BDE", Marc21Books.category("741.5944"));
+        assertNull(Marc21Books.category("741"), "741 is not 741.5");
+        assertEquals("CON", Marc21Books.category("398.2"));
+        assertEquals("SOC", Marc21Books.category("398.9"));
+        assertEquals("INF", Marc21Books.category("005.133"));
+        assertEquals("JOU", Marc21Books.category("070.4"));
+        assertEquals("PHI", Marc21Books.category("194"));
+        assertEquals("POL", Marc21Books.category("320.944"));
+        assertEquals("ECO", Marc21Books.category("338"));
+        assertEquals("MAT", Marc21Books.category("516.3"));
+        assertEquals("SCI", Marc21Books.category("530.12"));
+        assertEquals("POE", Marc21Books.category("841.7"));
+        assertEquals("THE", Marc21Books.category(" 842"));
+        assertEquals("ROM", Marc21Books.category("823.914"));
+        assertNull(Marc21Books.category("844"), "essays have no category");
+        assertNull(Marc21Books.category("940.53"));
+        assertNull(Marc21Books.category("B"));
+        assertNull(Marc21Books.category(null));
+    }
+
+    @Test
+    void rejectsMalformedRecords() {
+        byte[] record = new Marc21RecordBuilder().dataField("245", "a", "Titre").build();
+
+        assertThrows(IllegalArgumentException.class, () -> Marc21Record.parse(Arrays.copyOf(record, 20)));
+        byte[] overflowing = record.clone();
+        // the field claims to be longer than the record
+        overflowing[Marc21Record.LEADER_LENGTH + 3] = '9';
+        assertThrows(IllegalArgumentException.class, () -> Marc21Record.parse(overflowing));
+        byte[] badBaseAddress = record.clone();
+        badBaseAddress[12] = 'x';
+        assertThrows(IllegalArgumentException.class, () -> Marc21Record.parse(badBaseAddress));
+    }
+}
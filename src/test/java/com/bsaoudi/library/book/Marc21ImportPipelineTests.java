@@ -0,0 +1,146 @@
+package com.bsaoudi.library.book;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Framing of the records of a MARC21 file, and the rows coming out of the pipeline in the order of the file.
+ */
+class Marc21ImportPipelineTests {
+
+    private final Marc21ImportPipeline pipeline = new Marc21ImportPipeline();
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void cutsTheFileIntoRecords() throws IOException {
+        byte[] first = record("1");
+        byte[] second = record("2");
+        InputStream in = new ByteArrayInputStream(concat(first, "\r\n".getBytes(), second, "\n".getBytes()));
+
+        assertArrayEquals(first, Marc21ImportPipeline.readRecord(in));
+        assertArrayEquals(second, Marc21ImportPipeline.readRecord(in), "the line breaks between records are skipped");
+        assertNull(Marc21ImportPipeline.readRecord(in));
+    }
+
+    @Test
+    void rejectsTruncatedAndUnterminatedRecords() {
+        byte[] record = record("1");
+        IllegalArgumentException truncated = assertThrows(IllegalArgumentException.class,
+                () -> Marc21ImportPipeline.readRecord(new ByteArrayInputStream(Arrays.copyOf(record, record.length - 3))));
+        assertEquals("Truncated record", truncated.getMessage());
+
+        byte[] unterminated = record.clone();
+        unterminated[unterminated.length - 1] = ' ';
+        assertThrows(IllegalArgumentException.class,
+                () -> Marc21ImportPipeline.readRecord(new ByteArrayInputStream(unterminated)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Marc21ImportPipeline.readRecord(new ByteArrayInputStream("00010nam".getBytes())));
+    }
+
+    @Test
+    void readsTheRowsInTheOrderOfTheFile() {
+        int records = 3 * Marc21ImportPipeline.QUEUE_CAPACITY;
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (int i = 1; i <= records; i++) {
+            byte[] record = i == 7 ? "00027nam a22000xx   4500\u001E\u001E\u001D".getBytes() : record(String.valueOf(i));
+            file.write(record, 0, record.length);
+        }
+        byte[] truncated = Arrays.copyOf(record("last"), 40);
+        file.write(truncated, 0, truncated.length);
+
+        try (Marc21ImportPipeline.Rows rows = pipeline.open(new ByteArrayInputStream(file.toByteArray()), "ROM")) {
+            for (int i = 1; i <= records; i++) {
+                BookImportRow row = rows.next();
+                assertEquals(i, row.getLine());
+                if (i == 7) {
+                    assertTrue(row.getError().startsWith("Invalid number"), "an undecodable record is only rejected");
+                } else {
+                    assertEquals(String.valueOf(i), row.getBook().getIsbn());
+                }
+            }
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class, rows::hasNext);
+            assertEquals("Record " + (records + 1) + ": Truncated record", error.getMessage());
+        }
+    }
+
+    @Test
+    void interruptsTheReadingOfTheUploadWhenClosed() {
+        byte[] record = record("1");
+        AtomicBoolean interrupted = new AtomicBoolean();
+        InputStream stalled = new InputStream() {
+
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] next = new byte[1];
+                return read(next, 0, 1) < 0 ? -1 : next[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (position < record.length) {
+                    int read = Math.min(length, record.length - position);
+                    System.arraycopy(record, position, bytes, offset, read);
+                    position += read;
+                    return read;
+                }
+                // the client stops sending the upload
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                    return -1;
+                } catch (InterruptedException e) {
+                    // gives the connection back, which takes a while
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                    interrupted.set(true);
+                    throw new InterruptedIOException();
+                }
+            }
+        };
+
+        Marc21ImportPipeline.Rows rows = pipeline.open(stalled, null);
+        assertEquals("1", rows.next().getBook().getIsbn());
+        assertTimeoutPreemptively(Duration.ofSeconds(5), rows::close);
+
+        assertTrue(interrupted.get(), "the framing thread is stopped when close returns");
+        assertFalse(rows.hasNext());
+    }
+
+    private static byte[] record(String isbn) {
+        return new Marc21RecordBuilder()
+                .dataField("020", "a", isbn)
+                .dataField("245", "a", "Title " + isbn)
+                .build();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            bytes.write(part, 0, part.length);
+        }
+        return bytes.toByteArray();
+    }
+}
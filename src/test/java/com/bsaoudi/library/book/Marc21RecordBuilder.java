@@ -0,0 +1,53 @@
+package com.bsaoudi.library.book;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds MARC21 records in their ISO 2709 exchange format, for the tests.
+ */
+final class Marc21RecordBuilder {
+
+    private final ByteArrayOutputStream directory = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+
+    Marc21RecordBuilder controlField(String tag, String data) {
+        return field(tag, data);
+    }
+
+    /**
+     * @param tag
+     * @param subfields the code and the value of each subfield, one after the other
+     * @return
+     */
+    Marc21RecordBuilder dataField(String tag, String... subfields) {
+        StringBuilder data = new StringBuilder("  ");
+        for (int i = 0; i < subfields.length; i += 2) {
+            data.append('\u001F').append(subfields[i]).append(subfields[i + 1]);
+        }
+        return field(tag, data.toString());
+    }
+
+    byte[] build() {
+        int baseAddress = Marc21Record.LEADER_LENGTH + directory.size() + 1;
+        int length = baseAddress + fields.size() + 1;
+        String leader = String.format("%05dnam a22%05d   4500", length, baseAddress);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(leader.getBytes(StandardCharsets.US_ASCII), 0, Marc21Record.LEADER_LENGTH);
+        record.write(directory.toByteArray(), 0, directory.size());
+        record.write(Marc21Record.FIELD_TERMINATOR);
+        record.write(fields.toByteArray(), 0, fields.size());
+        record.write(Marc21Record.RECORD_TERMINATOR);
+        return record.toByteArray();
+    }
+
+    private Marc21RecordBuilder field(String tag, String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        String entry = String.format("%s%04d%05d", tag, bytes.length + 1, fields.size());
+        directory.write(entry.getBytes(StandardCharsets.US_ASCII), 0, entry.length());
+        fields.write(bytes, 0, bytes.length);
+        fields.write(Marc21Record.FIELD_TERMINATOR);
+        return this;
+    }
+}
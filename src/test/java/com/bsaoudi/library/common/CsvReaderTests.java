@@ -0,0 +1,62 @@
+package com.bsaoudi.library.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Quoted fields, line breaks and the line numbers of the records.
+ */
+class CsvReaderTests {
+
+    @Test
+    void splitsTheRecordsOnTheSeparators() throws IOException {
+        CsvReader csv = reader("isbn,title,,author\n978-1,Candide,,Voltaire");
+
+        assertEquals(Arrays.asList("isbn", "title", "", "author"), csv.readRecord());
+        assertEquals(Arrays.asList("978-1", "Candide", "", "Voltaire"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void readsTheQuotedFields() throws IOException {
+        CsvReader csv = reader("\"Le Rouge, et le Noir\",\"Il dit \"\"non\"\"\",\"\"\n\"ligne 1\nligne 2\",x\n");
+
+        assertEquals(Arrays.asList("Le Rouge, et le Noir", "Il dit \"non\"", ""), csv.readRecord());
+        assertEquals(Arrays.asList("ligne 1\nligne 2", "x"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void acceptsWindowsLineBreaks() throws IOException {
+        CsvReader csv = reader("a,b\r\n\"c\r\nd\",e\r\nf,g\r\n");
+
+        assertEquals(Arrays.asList("a", "b"), csv.readRecord());
+        assertEquals(1, csv.getRecordLine());
+        assertEquals(Arrays.asList("c\r\nd", "e"), csv.readRecord());
+        assertEquals(2, csv.getRecordLine());
+        assertEquals(Arrays.asList("f", "g"), csv.readRecord());
+        assertEquals(4, csv.getRecordLine(), "the line break inside the quoted field is counted");
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void reportsTheLineOfAnUnclosedQuotedField() throws IOException {
+        CsvReader csv = reader("a,b\n\"multi\nline\",c\nd,\"never closed\ne,f\n");
+
+        csv.readRecord();
+        csv.readRecord();
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, csv::readRecord);
+        assertEquals("Line 4: unclosed quoted field", error.getMessage());
+    }
+
+    private static CsvReader reader(String content) {
+        return new CsvReader(new StringReader(content));
+    }
+}
@@ -0,0 +1,39 @@
+package com.bsaoudi.library.common;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Springfox started with the components of the application read from their index: its own components are scanned,
+ * and the handler mappings using path patterns (actuator) left out.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:swagger-configuration")
+class SwaggerConfigurationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void documentsTheControllersWithTheIndexRead() throws Exception {
+        assertFalse(SpringProperties.getFlag(CandidateComponentsIndexLoader.IGNORE_INDEX), "the index is ignored");
+
+        String apiDocs = mockMvc.perform(get("/v2/api-docs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(apiDocs.contains("\"/rest/category/api/allCategories\""), apiDocs);
+        // mapped with path patterns, which springfox 2.9 does not read
+        assertFalse(apiDocs.contains("/actuator"), apiDocs);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bsaoudi.library.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The prod profile on a new database with a replica configured: Flyway migrates the empty schema, heartbeat table
+ * included, before the first heartbeat is written.
+ */
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-migration",
+        "library.datasource.replicas[0].url=jdbc:h2:mem:replica-migration-replica",
+        "library.datasource.heartbeat-interval-ms=3600000",
+        "spring.jpa.show-sql=false"})
+class ReplicaMigrationTests {
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    @Test
+    void writesTheFirstHeartbeatInTheMigratedSchema() {
+        Long beat = new JdbcTemplate(replicaSet.getPrimary())
+                .queryForObject("SELECT BEAT FROM REPLICATION_HEARTBEAT WHERE ID = 1", Long.class);
+
+        assertNotNull(beat);
+    }
+}
@@ -0,0 +1,142 @@
+package com.bsaoudi.library.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.customer.CustomerServiceImpl;
+import com.bsaoudi.library.customer.ICustomerDao;
+
+/**
+ * Two H2 servers in cluster mode: the application writes to both through the cluster URL and reads from the second
+ * one. A customer inserted on the replica only shows which database a transaction reads.
+ */
+@SpringBootTest(properties = {
+        "library.datasource.max-lag=1m",
+        "library.datasource.heartbeat-interval-ms=3600000"})
+class ReplicaRoutingTests {
+
+    private static final String REPLICA_ONLY_EMAIL = "replica.only@test.org";
+
+    private static String clusterUrl;
+
+    private static String replicaUrl;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private ICustomerDao customerDao;
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        Server primary = Server.createTcpServer("-tcpPort", "0", "-tcpDaemon", "-ifNotExists",
+                "-baseDir", Files.createTempDirectory("primary").toString()).start();
+        Server replica = Server.createTcpServer("-tcpPort", "0", "-tcpDaemon", "-ifNotExists",
+                "-baseDir", Files.createTempDirectory("replica").toString()).start();
+        String servers = "localhost:" + primary.getPort() + ",localhost:" + replica.getPort();
+        for (Server server : new Server[] {primary, replica}) {
+            execute("jdbc:h2:tcp://localhost:" + server.getPort() + "/./library;CLUSTER=''", "SET CLUSTER '" + servers + "'");
+        }
+        clusterUrl = "jdbc:h2:tcp://" + servers + "/./library";
+        replicaUrl = "jdbc:h2:tcp://localhost:" + replica.getPort() + "/./library;CLUSTER=TRUE";
+    }
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> clusterUrl);
+        registry.add("library.datasource.replicas[0].url", () -> replicaUrl);
+    }
+
+    @AfterEach
+    void resync() throws SQLException {
+        execute(replicaUrl, "DELETE FROM CUSTOMER WHERE EMAIL = '" + REPLICA_ONLY_EMAIL + "'");
+        replicaSet.heartbeat();
+    }
+
+    @Test
+    void readOnlyTransactionsReadTheReplica() throws SQLException {
+        insertCustomerOnReplica();
+
+        assertNotNull(customerService.findCustomerByEmail(REPLICA_ONLY_EMAIL));
+        assertNull(new TransactionTemplate(transactionManager)
+                .execute(status -> customerDao.findCustomerByEmailKey(REPLICA_ONLY_EMAIL)));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() throws SQLException {
+        insertCustomerOnReplica();
+        execute(replicaUrl, "UPDATE REPLICATION_HEARTBEAT SET BEAT = " + (System.currentTimeMillis() - 3_600_000));
+
+        replicaSet.checkReplicas();
+
+        assertNull(customerService.findCustomerByEmail(REPLICA_ONLY_EMAIL));
+        assertNull(replicaSet.nextReplica());
+    }
+
+    @Test
+    void writesGoToThePrimary() throws SQLException {
+        Customer customer = new Customer();
+        customer.setFirstName("Written");
+        customer.setLastName("Primary");
+        customer.setEmail("written@test.org");
+        customer.setCreationDate(LocalDate.now());
+        Integer customerId = customerService.saveCustomer(customer).getId();
+        try {
+            assertNotNull(new TransactionTemplate(transactionManager)
+                    .execute(status -> customerDao.findCustomerByEmailKey("written@test.org")));
+            // copied by the cluster
+            assertEquals(1, count(replicaUrl, "SELECT COUNT(*) FROM CUSTOMER WHERE EMAIL = 'written@test.org'"));
+        } finally {
+            customerService.deleteCustomer(customerId);
+        }
+    }
+
+    private static void insertCustomerOnReplica() throws SQLException {
+        execute(replicaUrl, "INSERT INTO CUSTOMER (CUSTOMER_ID, FIRST_NAME, LAST_NAME, EMAIL, EMAIL_KEY, CREATION_DATE) "
+                + "VALUES (1000000, 'Replica', 'Only', '" + REPLICA_ONLY_EMAIL + "', '" + REPLICA_ONLY_EMAIL + "', "
+                + "CURRENT_DATE)");
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "sa");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int count(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "sa");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
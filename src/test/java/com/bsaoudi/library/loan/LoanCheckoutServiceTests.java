@@ -0,0 +1,175 @@
+package com.bsaoudi.library.loan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.book.BookDTO;
+import com.bsaoudi.library.book.BookServiceImpl;
+import com.bsaoudi.library.category.Category;
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.customer.CustomerServiceImpl;
+
+/**
+ * Concurrent checkouts and returns on a few hot books, one at a time or in batches: no book may be lent more than its number of examplaries,
+ * and a customer never has two open loans of the same book.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:checkout")
+class LoanCheckoutServiceTests {
+
+    private static final int BOOKS = 64;
+
+    private static final int EXAMPLARIES = 3;
+
+    private static final int CUSTOMERS = 500;
+
+    private static final int THREADS = 16;
+
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    private static final int BATCH_SIZE = 8;
+
+    @Autowired
+    private LoanCheckoutService loanCheckoutService;
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private OverdueLoanTracker overdueLoanTracker;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void neverLendsMoreExamplariesThanTheLibraryOwns() throws Exception {
+        List<Integer> bookIds = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookService.saveBook(book(i)).getId());
+        }
+        List<Integer> customerIds = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerIds.add(customerService.saveCustomer(customer(i)).getId());
+        }
+
+        Map<CheckoutResult, AtomicInteger> results = new HashMap<>();
+        for (CheckoutResult result : CheckoutResult.values()) {
+            results.put(result, new AtomicInteger());
+        }
+        AtomicInteger checkins = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    SimpleLoanDTO request = request(random, bookIds, customerIds);
+                    int operation = random.nextInt(16);
+                    if (operation == 0) {
+                        List<SimpleLoanDTO> batch = new ArrayList<>();
+                        for (int j = 0; j < BATCH_SIZE; j++) {
+                            batch.add(request(random, bookIds, customerIds));
+                        }
+                        loanCheckoutService.checkoutAll(batch).forEach(result -> results.get(result).incrementAndGet());
+                    } else if (operation == 1) {
+                        List<SimpleLoanDTO> batch = new ArrayList<>();
+                        for (int j = 0; j < BATCH_SIZE; j++) {
+                            batch.add(request(random, bookIds, customerIds));
+                        }
+                        checkins.addAndGet((int) loanCheckoutService.checkinAll(batch).stream()
+                                .filter(result -> result == CheckinResult.RETURNED).count());
+                    } else if (operation < 5) {
+                        if (loanCheckoutService.checkin(request)) {
+                            checkins.incrementAndGet();
+                        }
+                    } else {
+                        results.get(loanCheckoutService.checkout(request)).incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(results.get(CheckoutResult.CHECKED_OUT).get() > 0);
+        assertTrue(results.get(CheckoutResult.NO_EXAMPLARY_AVAILABLE).get() > 0);
+        assertEquals(0, results.get(CheckoutResult.NOT_FOUND).get());
+
+        Map<Integer, Long> openLoansByBook = new HashMap<>();
+        for (Object[] row : entityManager.createQuery("SELECT lo.pk.book.id, COUNT(lo) FROM Loan lo WHERE lo.status = :status"
+                + " GROUP BY lo.pk.book.id", Object[].class).setParameter("status", LoanStatus.OPEN).getResultList()) {
+            openLoansByBook.put((Integer) row[0], (Long) row[1]);
+        }
+        for (int i = 0; i < BOOKS; i++) {
+            BookDTO book = bookService.findBookByIsbn("checkout-" + i);
+            Integer bookId = book.getId();
+            long openLoans = openLoansByBook.getOrDefault(bookId, 0L);
+            assertTrue(openLoans <= EXAMPLARIES, "book " + bookId + " lent " + openLoans + " times");
+            assertEquals(EXAMPLARIES - openLoans, book.getAvailableExamplaries().longValue());
+        }
+        assertEquals(results.get(CheckoutResult.CHECKED_OUT).get() - checkins.get(),
+                openLoansByBook.values().stream().mapToLong(Long::longValue).sum());
+        List<Object[]> duplicates = entityManager.createQuery("SELECT lo.pk.book.id, lo.pk.customer.id FROM Loan lo"
+                + " WHERE lo.status = :status GROUP BY lo.pk.book.id, lo.pk.customer.id HAVING COUNT(lo) > 1", Object[].class)
+                .setParameter("status", LoanStatus.OPEN).getResultList();
+        assertTrue(duplicates.isEmpty());
+        assertEquals(openLoansByBook.values().stream().mapToLong(Long::longValue).sum(), overdueLoanTracker.size(),
+                "every open loan is tracked");
+    }
+
+    private static SimpleLoanDTO request(Random random, List<Integer> bookIds, List<Integer> customerIds) {
+        SimpleLoanDTO request = new SimpleLoanDTO();
+        request.setBookId(bookIds.get(random.nextInt(BOOKS)));
+        request.setCustomerId(customerIds.get(random.nextInt(CUSTOMERS)));
+        request.setBeginDate(LocalDate.now());
+        request.setEndDate(LocalDate.now().plusDays(15));
+        return request;
+    }
+
+    private static Book book(int index) {
+        Book book = new Book();
+        book.setTitle("Hot title " + index);
+        book.setAuthor("Author " + index);
+        book.setIsbn("checkout-" + index);
+        book.setReleaseDate(LocalDate.of(2020, 1, 1));
+        book.setRegisterDate(LocalDate.now());
+        book.setTotalExamplaries(EXAMPLARIES);
+        book.setCategory(new Category("ROM", ""));
+        return book;
+    }
+
+    private static Customer customer(int index) {
+        Customer customer = new Customer();
+        customer.setFirstName("Reader");
+        customer.setLastName("Number " + index);
+        customer.setEmail("reader" + index + "@test.org");
+        customer.setJob("reader");
+        customer.setAddress("library");
+        customer.setCreationDate(LocalDate.now());
+        return customer;
+    }
+}
@@ -0,0 +1,161 @@
+package com.bsaoudi.library.loan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bsaoudi.library.book.Book;
+import com.bsaoudi.library.book.BookServiceImpl;
+import com.bsaoudi.library.category.Category;
+import com.bsaoudi.library.customer.Customer;
+import com.bsaoudi.library.customer.CustomerServiceImpl;
+
+/**
+ * Keyset pages of the loans: every loan is read once, in the order of the index the pages are read from, so that a
+ * page does not sort the loans of the previous ones.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:loan-pages")
+class LoanPagesTests {
+
+    private static final LocalDate MAX_END_DATE = LocalDate.of(2024, 2, 1);
+
+    private static final int PAGE_SIZE = 3;
+
+    @Autowired
+    private LoanServiceImpl loanService;
+
+    @Autowired
+    private BookServiceImpl bookService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> bookIds = new ArrayList<>();
+
+    private final List<Integer> customerIds = new ArrayList<>();
+
+    @BeforeAll
+    void insertLoans() {
+        for (int i = 0; i < 4; i++) {
+            bookIds.add(bookService.saveBook(book(i)).getId());
+        }
+        for (int i = 0; i < 3; i++) {
+            customerIds.add(customerService.saveCustomer(customer(i)).getId());
+        }
+        LocalDateTime creation = LocalDateTime.of(2024, 1, 1, 10, 0);
+        for (int book = 0; book < bookIds.size(); book++) {
+            for (int customer = 0; customer < customerIds.size(); customer++) {
+                // a few loans share their end date and their creation time, the last columns of the key decide
+                LocalDate endDate = LocalDate.of(2024, 1, 10 + (book + customer) % 3 * 10);
+                jdbcTemplate.update("INSERT INTO LOAN (CREATION_DATE_TIME, BEGIN_DATE, END_DATE, STATUS, CUSTOMER_ID,"
+                        + " BOOK_ID) VALUES (?, ?, ?, ?, ?, ?)", creation.plusMinutes((book * customer) % 4),
+                        creation.toLocalDate(), endDate, customer == 2 && book == 0 ? "CLOSE" : "OPEN",
+                        customerIds.get(customer), bookIds.get(book));
+            }
+        }
+    }
+
+    @Test
+    void readsTheLoansEndingBeforeADateOnceInTheirEndDateOrder() {
+        List<LoanDTO> loans = new ArrayList<>();
+        LoanCursor cursor = null;
+        Slice<LoanDTO> page;
+        do {
+            page = loanService.findLoansByEndDateBefore(MAX_END_DATE, cursor, PAGE_SIZE);
+            loans.addAll(page.getContent());
+            cursor = page.hasNext() ? LoanCursor.decode(LoanCursor.encode(loans.get(loans.size() - 1))) : null;
+        } while (cursor != null);
+
+        List<LoanDTO> expected = loanService.findAllLoanDTOsByEndDateBefore(MAX_END_DATE).stream()
+                .sorted(Comparator.comparing(LoanDTO::getLoanEndDate).thenComparing(LoanDTO::getCreationDateTime)
+                        .thenComparing(loan -> loan.getBookDTO().getId())
+                        .thenComparing(loan -> loan.getCustomerDTO().getId()))
+                .collect(Collectors.toList());
+        assertEquals(12, expected.size());
+        assertEquals(keys(expected), keys(loans));
+    }
+
+    @Test
+    void readsTheOpenLoansOfACustomerOnceWhateverTheCaseOfTheEmail() {
+        List<LoanDTO> loans = new ArrayList<>();
+        LoanCursor cursor = null;
+        Slice<LoanDTO> page;
+        do {
+            page = loanService.getOpenLoansOfThisCustomer("READER.1@TEST.ORG", LoanStatus.OPEN, cursor, PAGE_SIZE);
+            loans.addAll(page.getContent());
+            cursor = page.hasNext() ? LoanCursor.decode(LoanCursor.encode(loans.get(loans.size() - 1))) : null;
+        } while (cursor != null);
+
+        List<LoanDTO> expected = loanService.getAllOpenLoanDTOsOfThisCustomer("reader.1@test.org", LoanStatus.OPEN)
+                .stream()
+                .sorted(Comparator.comparing(LoanDTO::getCreationDateTime)
+                        .thenComparing(loan -> loan.getBookDTO().getId()))
+                .collect(Collectors.toList());
+        assertEquals(4, expected.size());
+        assertEquals(keys(expected), keys(loans));
+    }
+
+    @Test
+    void readsThePagesFromTheIndexes() {
+        String byEndDate = plan("SELECT B.BOOK_ID, C.CUSTOMER_ID FROM LOAN L INNER JOIN BOOK B ON L.BOOK_ID = B.BOOK_ID"
+                + " INNER JOIN CUSTOMER C ON L.CUSTOMER_ID = C.CUSTOMER_ID WHERE L.END_DATE < DATE '2024-02-01'"
+                + " AND L.END_DATE >= DATE '2024-01-10' ORDER BY L.END_DATE, L.CREATION_DATE_TIME, L.BOOK_ID,"
+                + " L.CUSTOMER_ID FETCH FIRST 3 ROWS ONLY");
+        assertTrue(byEndDate.contains("IDX_LOAN_END_DATE_KEY") && byEndDate.contains("index sorted"), byEndDate);
+        String byEmail = plan("SELECT B.BOOK_ID, C.CUSTOMER_ID FROM LOAN L INNER JOIN BOOK B ON L.BOOK_ID = B.BOOK_ID"
+                + " INNER JOIN CUSTOMER C ON L.CUSTOMER_ID = C.CUSTOMER_ID WHERE C.EMAIL_KEY = 'reader.1@test.org'"
+                + " AND L.STATUS = 'OPEN' ORDER BY L.CUSTOMER_ID, L.STATUS, L.CREATION_DATE_TIME, L.BOOK_ID"
+                + " FETCH FIRST 3 ROWS ONLY");
+        assertTrue(byEmail.contains("IDX_CUSTOMER_EMAIL_KEY") && byEmail.contains("IDX_LOAN_CUSTOMER_STATUS_KEY"),
+                byEmail);
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private static List<String> keys(List<LoanDTO> loans) {
+        return loans.stream().map(LoanCursor::encode).collect(Collectors.toList());
+    }
+
+    private static Book book(int index) {
+        Book book = new Book();
+        book.setTitle("Paged title " + index);
+        book.setAuthor("Author " + index);
+        book.setIsbn("pages-" + index);
+        book.setReleaseDate(LocalDate.of(2020, 1, 1));
+        book.setRegisterDate(LocalDate.now());
+        book.setTotalExamplaries(3);
+        book.setCategory(new Category("ROM", ""));
+        return book;
+    }
+
+    private static Customer customer(int index) {
+        Customer customer = new Customer();
+        customer.setFirstName("Reader");
+        customer.setLastName("Number " + index);
+        customer.setEmail("Reader." + index + "@Test.org");
+        customer.setJob("reader");
+        customer.setAddress("library");
+        customer.setCreationDate(LocalDate.now());
+        return customer;
+    }
+}
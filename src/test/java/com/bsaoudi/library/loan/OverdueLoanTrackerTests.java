@@ -0,0 +1,82 @@
+package com.bsaoudi.library.loan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Loans becoming overdue as the tracker day moves forward, and closed loans leaving the tracker.
+ */
+class OverdueLoanTrackerTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    private final List<LoanDTO> published = new ArrayList<>();
+
+    private final OverdueLoanTracker tracker = new OverdueLoanTracker(event -> published.add(((LoanOverdueEvent) event).getLoan()));
+
+    @Test
+    void publishesTheLoansPassingTheirEndDate() {
+        LoanDTO late = loan(1, TODAY.minusDays(3));
+        LoanDTO dueToday = loan(2, TODAY);
+        LoanDTO dueTomorrow = loan(3, TODAY.plusDays(1));
+        LoanDTO dueNextWeek = loan(4, TODAY.plusDays(7));
+        tracker.rebuild(Arrays.asList(dueNextWeek, late, dueTomorrow, dueToday), TODAY);
+
+        assertEquals(Arrays.asList(late), tracker.getOverdueLoans());
+        assertTrue(published.isEmpty(), "the loans overdue when loaded are not published");
+
+        assertEquals(0, tracker.advance(TODAY));
+        assertEquals(2, tracker.advance(TODAY.plusDays(2)));
+        assertEquals(Arrays.asList(dueToday, dueTomorrow), published);
+        assertEquals(Arrays.asList(late, dueToday, dueTomorrow), tracker.getOverdueLoans());
+    }
+
+    @Test
+    void followsTheSavedAndClosedLoans() {
+        tracker.rebuild(new ArrayList<>(), TODAY);
+        LoanDTO dueTomorrow = loan(1, TODAY.plusDays(1));
+        LoanDTO backdated = loan(2, TODAY.minusDays(1));
+        tracker.track(dueTomorrow);
+        tracker.track(backdated);
+        assertEquals(Arrays.asList(backdated), published, "a loan saved already overdue is published at once");
+
+        tracker.untrack(1, 1);
+        assertEquals(0, tracker.advance(TODAY.plusDays(5)));
+        assertEquals(1, tracker.size());
+        assertEquals(Arrays.asList(2), tracker.getOverdueLoans().stream().map(loan -> loan.getBookDTO().getId())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void keepsTheLoansTrackedWhileRebuilding() {
+        LoanDTO closedWhileRead = loan(1, TODAY.plusDays(1));
+        LoanDTO savedWhileRead = loan(2, TODAY.plusDays(2));
+        LoanDTO unchanged = loan(3, TODAY.plusDays(3));
+        tracker.rebuild(new ArrayList<>(), TODAY);
+        tracker.rebuild(() -> {
+            // the loans were read before these commits
+            List<LoanDTO> openLoans = Arrays.asList(closedWhileRead, unchanged);
+            tracker.untrack(1, 1);
+            tracker.track(savedWhileRead);
+            return openLoans;
+        }, TODAY);
+
+        assertEquals(2, tracker.size());
+        assertEquals(2, tracker.advance(TODAY.plusDays(5)));
+        assertEquals(Arrays.asList(savedWhileRead, unchanged), published);
+    }
+
+    private static LoanDTO loan(int bookId, LocalDate endDate) {
+        return new LoanDTO(bookId, "isbn-" + bookId, "title " + bookId, 1, "first", "last", "customer@library.org",
+                LocalDateTime.of(2024, 1, 1, 0, 0), endDate.minusDays(14), endDate);
+    }
+}
@@ -0,0 +1,114 @@
+package com.bsaoudi.library.mail;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+/**
+ * Sends the outbox to an in-process GreenMail SMTP server.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mail-outbox",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "library.mail.outbox.poll-interval-ms=3600000",
+        "library.mail.outbox.batch-size=2",
+        "library.mail.outbox.initial-backoff=1h"})
+class MailOutboxTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private IMailOutboxService mailOutboxService;
+
+    @Autowired
+    private IOutboxMailDao outboxMailDao;
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void sendsTheQueuedMailsInBatches() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(mailOutboxService.enqueue("library@test.org", "reader" + i + "@test.org", "Loan " + i, "Return it").getId());
+        }
+
+        // 2 workers of 2 mails: the fifth mail needs a second poll
+        dispatchAndWait();
+        dispatchAndWait();
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 5));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(5, received.length);
+        for (Integer id : ids) {
+            OutboxMail mail = outboxMailDao.findById(id).orElseThrow(IllegalStateException::new);
+            assertEquals(MailStatus.SENT, mail.getStatus());
+            assertEquals(1, mail.getAttempts());
+            assertNotNull(mail.getSentDateTime());
+        }
+    }
+
+    @Test
+    void retriesLaterWhenTheServerIsDown() throws Exception {
+        greenMail.stop();
+        Integer id = mailOutboxService.enqueue("library@test.org", "reader@test.org", "Loan", "Return it").getId();
+
+        dispatchAndWait();
+
+        OutboxMail mail = outboxMailDao.findById(id).orElseThrow(IllegalStateException::new);
+        assertEquals(MailStatus.PENDING, mail.getStatus());
+        assertEquals(1, mail.getAttempts());
+        assertNotNull(mail.getLastError());
+        assertTrue(mail.getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(50)));
+    }
+
+    @Test
+    void leasesAMailToASingleDispatcher() {
+        Integer id = mailOutboxService.enqueue("library@test.org", "reader@test.org", "Loan", "Return it").getId();
+        // both dispatchers read the mail due before either leases it
+        LocalDateTime seen = outboxMailDao.findById(id).orElseThrow(IllegalStateException::new).getNextAttemptAt();
+        LocalDateTime leaseEnd = LocalDateTime.now().plusHours(1);
+
+        assertEquals(1, lease(id, seen, leaseEnd));
+        assertEquals(0, lease(id, seen, leaseEnd.plusMinutes(1)));
+        assertTrue(mailOutboxService.claimDueMails(10).stream().noneMatch(mail -> mail.getId().equals(id)));
+        assertEquals(leaseEnd.withNano(0), outboxMailDao.findById(id).orElseThrow(IllegalStateException::new)
+                .getNextAttemptAt().withNano(0));
+    }
+
+    private int lease(Integer id, LocalDateTime seen, LocalDateTime leaseEnd) {
+        return transactionTemplate.execute(status -> outboxMailDao.lease(id, seen, leaseEnd, MailStatus.PENDING));
+    }
+
+    private void dispatchAndWait() throws InterruptedException {
+        mailDispatcher.dispatch();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!mailDispatcher.isIdle() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bsaoudi.library.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Statements of a request recorded once, asynchronous requests included.
+ */
+class RequestMetricsInterceptorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RequestMetricsInterceptor interceptor = new RequestMetricsInterceptor(meterRegistry,
+            new SqlLogProperties());
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private final HandlerMethod handler = handler();
+
+    @Test
+    void recordsASynchronousRequestOnCompletion() {
+        interceptor.preHandle(request, response, handler);
+        RequestStatements.record(TimeUnit.MILLISECONDS.toNanos(2));
+        interceptor.afterCompletion(request, response, handler, null);
+
+        DistributionSummary queries = queries();
+        assertEquals(1, queries.count());
+        assertEquals(1, queries.totalAmount());
+    }
+
+    @Test
+    void recordsAnAsynchronousRequestOnceWithTheStatementsOfBothDispatches() {
+        interceptor.preHandle(request, response, handler);
+        RequestStatements.record(TimeUnit.MILLISECONDS.toNanos(2));
+        RequestStatements.record(TimeUnit.MILLISECONDS.toNanos(3));
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        assertEquals(0, meterRegistry.find(RequestMetricsInterceptor.DB_QUERIES).meters().size(),
+                "nothing is recorded before the async dispatch");
+
+        interceptor.preHandle(request, response, handler);
+        RequestStatements.record(TimeUnit.MILLISECONDS.toNanos(1));
+        interceptor.afterCompletion(request, response, handler, null);
+
+        DistributionSummary queries = queries();
+        assertEquals(1, queries.count());
+        assertEquals(3, queries.totalAmount());
+        assertEquals(6, meterRegistry.get(RequestMetricsInterceptor.DB_TIME).timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    private DistributionSummary queries() {
+        return meterRegistry.get(RequestMetricsInterceptor.DB_QUERIES)
+                .tag("handler", "RequestMetricsInterceptorTests.listBooks").summary();
+    }
+
+    private HandlerMethod handler() {
+        try {
+            return new HandlerMethod(this, RequestMetricsInterceptorTests.class.getDeclaredMethod("listBooks"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private void listBooks() {
+    }
+}
@@ -0,0 +1,112 @@
+package com.bsaoudi.library.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+
+/**
+ * Statements logged from their execution time, and rows counted on the result sets of the sampled statements only.
+ */
+class StatementLogListenerTests {
+
+    private static final String QUERY = "SELECT X FROM SYSTEM_RANGE(1, 3)";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("library.sql");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final SqlLogProperties properties = new SqlLogProperties();
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void proxyDataSource() {
+        DataSource target = new DriverManagerDataSource("jdbc:h2:mem:statement-log", "sa", "");
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("sqlLogProperties", properties);
+        dataSource = (DataSource) new DataSourceProxyPostProcessor(beanFactory.getBeanProvider(SqlLogProperties.class))
+                .postProcessAfterInitialization(target, "dataSource");
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void doesNotLogAQueryReadSlowlyAsSlow() throws Exception {
+        properties.setSlowThreshold(Duration.ofMillis(50));
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(QUERY)) {
+            while (resultSet.next()) {
+                // a client reading a streamed response slowly
+                Thread.sleep(30);
+            }
+        }
+
+        assertTrue(messages().isEmpty(), messages().toString());
+    }
+
+    @Test
+    void leavesTheResultSetsOfTheStatementsNotSampledUnproxied() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(QUERY)) {
+            assertFalse(resultSet instanceof ProxyJdbcObject);
+        }
+
+        assertTrue(messages().isEmpty(), messages().toString());
+    }
+
+    @Test
+    void logsTheRowsReadByTheSampledStatements() throws SQLException {
+        properties.setSampleRate(1);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(QUERY)) {
+                assertTrue(resultSet instanceof ProxyJdbcObject);
+                while (resultSet.next()) {
+                    // read all the rows
+                }
+            }
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS SAMPLED (ID INT)");
+        }
+
+        List<String> messages = messages();
+        assertEquals(2, messages.size(), messages.toString());
+        assertTrue(messages.get(0).contains(" 3 rows, " + QUERY), messages.get(0));
+        assertTrue(messages.get(1).startsWith("Sampled statement: "), messages.get(1));
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+    }
+}